@@ -31,6 +31,7 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		{
 			$this->writeClass($classNode);
 		}
+		$this->writeTypeRegistry($classNodes);
 		
 		$serviceNodes = $xpath->query("/xml/services/service");		
 		foreach($serviceNodes as $serviceNode) 
@@ -93,9 +94,19 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$enumType = $enumNode->getAttribute("enumType");
 		$baseInterface = ($enumType == "string") ? "EnumAsString": "EnumAsInt";
 		
+		// get() looks small int ranges up in an array indexed by value, others in a hash map
+		$constants = $this->getEnumConstants($enumNode);
+		$dense = count($constants) && $this->isDenseEnum($enumType, $constants);
+		
 		$str = "";
 		$str = "package com.kaltura.client.enums;\n";
 		$str .= "\n";
+		if(count($constants) && !$dense)
+		{
+			$str .= "import java.util.HashMap;\n";
+			$str .= "import java.util.Map;\n";
+			$str .= "\n";
+		}
 		$str .= $this->getBanner();
 		
 		$desc = $this->addDescription($enumNode, "");
@@ -112,7 +123,7 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		// Generate get function if needed
 		if($enumCount) 
 		{
-			$this->generateEnumGetFunction($str, $enumNode, $enumType,  $enumName);
+			$this->generateEnumGetFunction($str, $enumNode, $enumType,  $enumName, $constants, $dense);
 		}
 		else 
 		{
@@ -176,6 +187,9 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$str .= "	public $type getValue() {\n";
 		$str .= "		return this.value;\n";
 		$str .= "	}\n\n";
+		$str .= "	/**\n";
+		$str .= "	 * Changing the value of a constant is not reflected by get(), which looks values up in a table built once.\n";
+		$str .= "	 */\n";
 		$str .= "	public void setValue($type value) {\n";
 		$str .= "		this.value = value;\n";
 		$str .= "	}\n\n";
@@ -189,12 +203,64 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 	}
 
 
-	function generateEnumGetFunction(&$str, $enumNode, $enumType,  $enumName){
+	/**
+	 * Returns the enum constant names by value, in declaration order, skipping duplicated values as generateEnumValues does
+	 */
+	function getEnumConstants($enumNode)
+	{
+		$constants = array();
+		foreach($enumNode->childNodes as $constNode)
+		{
+			if($constNode->nodeType != XML_ELEMENT_NODE)
+				continue;
+			
+			$propertyValue = $constNode->getAttribute("value");
+			if(in_array($propertyValue, array_keys($constants)))
+				continue;
+			$constants[$propertyValue] = $constNode->getAttribute("name");
+		}
+		return $constants;
+	}
+	
+	function isDenseEnum($enumType, array $constants)
+	{
+		if($enumType == "string")
+			return false;
+		
+		$values = array_map('intval', array_keys($constants));
+		return (max($values) - min($values) < 256);
+	}
+
+	function generateEnumGetFunction(&$str, $enumNode, $enumType,  $enumName, array $constants, $dense){
 		$type = 'Integer';
 		if($enumType == "string"){
 			$type = 'String';
 		}
 
+		$defaultName = reset($constants);
+
+		if($dense)
+		{
+			$minValue = min(array_map('intval', array_keys($constants)));
+			$maxValue = max(array_map('intval', array_keys($constants)));
+			$str .= "	private static final int MinValue = $minValue;\n";
+			$str .= "	private static final $enumName[] byValue = new $enumName[" . ($maxValue - $minValue + 1) . "];\n\n";
+			$str .= "	static {\n";
+			$str .= "		for($enumName item: values()) {\n";
+			$str .= "			byValue[item.value - MinValue] = item;\n";
+			$str .= "		}\n";
+			$str .= "	}\n\n";
+		}
+		else
+		{
+			$str .= "	private static final Map<$type, $enumName> byValue = new HashMap<$type, $enumName>();\n\n";
+			$str .= "	static {\n";
+			$str .= "		for($enumName item: values()) {\n";
+			$str .= "			byValue.put(item.value, item);\n";
+			$str .= "		}\n";
+			$str .= "	}\n\n";
+		}
+
 		$str .= "	public static $enumName get($type value) {\n";
 		$str .= "		if(value == null)\n";
 		$str .= "		{\n";
@@ -202,22 +268,25 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$str .= "		}\n";
 		$str .= "		\n";
 
-		$str .= "		// goes over $enumName defined values and compare the inner value with the given one:\n";
-		$str .= "		for($enumName item: values()) {\n";
-		if($enumType == "string") {
-			$str .= "			if(item.getValue().equals(value)) {\n";
-		} else {
-			$str .= "			if(item.getValue() == value) {\n";
+		if($dense)
+		{
+			$str .= "		int index = value - MinValue;\n";
+			$str .= "		if(index >= 0 && index < byValue.length && byValue[index] != null) {\n";
+			$str .= "			return byValue[index];\n";
+			$str .= "		}\n";
+		}
+		else
+		{
+			$str .= "		$enumName item = byValue.get(value);\n";
+			$str .= "		if(item != null) {\n";
+			$str .= "			return item;\n";
+			$str .= "		}\n";
 		}
-		$str .= "				return item;\n";
-		$str .= "			}\n";
-		$str .= "		}\n";
 
 		$str .= "		// in case the requested value was not found in the enum values, we return the first item as default.\n";
-		$str .= "		return $enumName.values().length > 0 ? $enumName.values()[0]: null;\n";
+		$str .= "		return $defaultName;\n";
 
 		$str .= "   }\n";
-
 	}
 
 	function writeClass(DOMElement $classNode) 
@@ -290,6 +359,16 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$this->generateToParamsMethod($classNode);
 		$this->appendLine("");
 
+		// Generate streaming serialization methods
+		$this->generateWriteToMethod($imports, $classNode);
+		$this->appendLine("");
+
+		// Generate streaming deserialization methods
+		if($hasProperties) {
+			$this->generateReadFieldMethod($imports, $classNode);
+			$this->appendLine("");
+		}
+
 		$this->finalizeClass($imports, $classNode);
 
 		$package = "package com.kaltura.client.types;\n\n";
@@ -298,11 +377,193 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$this->addFile($file, $package . $imports . "\n" . $this->getTextBlock());
 	}
 	
+	function writeTypeRegistry(DOMNodeList $classNodes)
+	{
+		$objectTypes = array();
+		foreach($classNodes as $classNode)
+		{
+			$type = $classNode->getAttribute("name");
+			if(!$this->shouldIncludeType($type) || $type === 'KalturaObject' || preg_match('/ListResponse$/', $type))
+				continue;
+			
+			$objectTypes[] = $classNode;
+		}
+		
+		$this->startNewTextBlock();
+		$this->appendLine("package com.kaltura.client.types;");
+		$this->appendLine("");
+		$this->appendLine("import com.google.gson.JsonObject;");
+		$this->appendLine("");
+		$this->appendLine("import java.util.HashMap;");
+		$this->appendLine("import java.util.Map;");
+		$this->appendLine("");
+		$this->appendLine($this->getBanner());
+		$this->appendLine("/**");
+		$this->appendLine(" * Maps objectType names, as sent by the server, to the generated types.");
+		$this->appendLine(" * Objects are created with plain constructor calls, no reflection is involved.");
+		$this->appendLine(" */");
+		$this->appendLine("public final class TypeRegistry {");
+		$this->appendLine("	");
+		// the tables are filled by chunks of types, one method per chunk, so that no method, <clinit>
+		// included, gets near the JVM's 64KB limit whatever the number of types in the schema
+		$count = count($objectTypes);
+		$chunks = array_chunk($objectTypes, 1000, true);
+		
+		$this->appendLine("	private static final String[] objectTypes = new String[$count];");
+		$this->appendLine("	private static final String[] parentTypes = new String[$count];");
+		$this->appendLine("	private static final Class<?>[] types = new Class<?>[$count];");
+		$this->appendLine("	private static final Class<?>[] tokenizers = new Class<?>[$count];");
+		$this->appendLine("	");
+		$this->appendLine("	private static final Map<String, Integer> ids = new HashMap<String, Integer>($count * 2);");
+		$this->appendLine("	private static final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>($count * 2);");
+		$this->appendLine("	private static final Map<Class<?>, Integer> tokenizerIds = new HashMap<Class<?>, Integer>($count * 2);");
+		$this->appendLine("	");
+		$this->appendLine("	static {");
+		foreach(array_keys($chunks) as $chunk)
+			$this->appendLine("		addTypes$chunk();");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		foreach($chunks as $chunk => $chunkTypes)
+		{
+			$this->appendLine("	private static void addTypes$chunk() {");
+			foreach($chunkTypes as $id => $classNode)
+			{
+				$name = $classNode->getAttribute("name");
+				$base = $classNode->hasAttribute("base") ? "\"" . $classNode->getAttribute("base") . "\"" : "null";
+				$type = $this->getJavaTypeName($name);
+				$this->appendLine("		add($id, \"$name\", $base, $type.class, $type.Tokenizer.class);");
+			}
+			$this->appendLine("	}");
+			$this->appendLine("	");
+		}
+		$this->appendLine("	private static void add(int id, String objectType, String parentType, Class<?> type, Class<?> tokenizer) {");
+		$this->appendLine("		objectTypes[id] = objectType;");
+		$this->appendLine("		parentTypes[id] = parentType;");
+		$this->appendLine("		types[id] = type;");
+		$this->appendLine("		tokenizers[id] = tokenizer;");
+		$this->appendLine("		ids.put(objectType, id);");
+		$this->appendLine("		classIds.put(type, id);");
+		$this->appendLine("		tokenizerIds.put(tokenizer, id);");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	private TypeRegistry() {");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param objectType object type, e.g. KalturaMediaEntry");
+		$this->appendLine("	 * @return the generated class, or null if the type is unknown");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static Class<?> getType(String objectType) {");
+		$this->appendLine("		Integer id = ids.get(objectType);");
+		$this->appendLine("		return id != null ? types[id] : null;");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param type generated class");
+		$this->appendLine("	 * @return its object type, or null if the class is not a generated type");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static String getObjectType(Class<?> type) {");
+		$this->appendLine("		Integer id = classIds.get(type);");
+		$this->appendLine("		return id != null ? objectTypes[id] : null;");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param objectType object type, e.g. KalturaMediaEntry");
+		$this->appendLine("	 * @return the object type it extends, or null for root types and unknown types");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static String getParentType(String objectType) {");
+		$this->appendLine("		Integer id = ids.get(objectType);");
+		$this->appendLine("		return id != null ? parentTypes[id] : null;");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param objectType object type, e.g. KalturaMediaEntry");
+		$this->appendLine("	 * @param jsonObject the object's JSON");
+		$this->appendLine("	 * @return new instance, or null if the type is unknown or abstract");
+		$this->appendLine("	 * @throws APIException on invalid JSON");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static ObjectBase create(String objectType, JsonObject jsonObject) throws APIException {");
+		$this->appendLine("		Integer id = ids.get(objectType);");
+		$this->appendLine("		if(id == null) {");
+		$this->appendLine("			return null;");
+		$this->appendLine("		}");
+		$this->appendLine("		");
+		$this->appendLine("		switch(id) {");
+		foreach($objectTypes as $id => $classNode)
+		{
+			if($classNode->hasAttribute("abstract"))
+				continue;
+			
+			$type = $this->getJavaTypeName($classNode->getAttribute("name"));
+			$this->appendLine("			case $id: return new $type(jsonObject);");
+		}
+		$this->appendLine("			default: return null;");
+		$this->appendLine("		}");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param objectType object type, e.g. KalturaMediaEntry");
+		$this->appendLine("	 * @return new empty instance, or null if the type is unknown or abstract");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static ObjectBase newInstance(String objectType) {");
+		$this->appendLine("		Integer id = ids.get(objectType);");
+		$this->appendLine("		return id != null ? newInstance(id) : null;");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param type generated class");
+		$this->appendLine("	 * @return new empty instance, or null if the class is not a generated type or abstract");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static ObjectBase newInstance(Class<?> type) {");
+		$this->appendLine("		Integer id = classIds.get(type);");
+		$this->appendLine("		return id != null ? newInstance(id) : null;");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	/**");
+		$this->appendLine("	 * @param tokenizer generated tokenizer interface, e.g. MediaEntry.Tokenizer.class");
+		$this->appendLine("	 * @param prefix token prefix, e.g. \"1:result\"");
+		$this->appendLine("	 * @return new tokenizer, or null if the interface is not a generated tokenizer");
+		$this->appendLine("	 */");
+		$this->appendLine("	public static Object newTokenizer(Class<?> tokenizer, String prefix) {");
+		$this->appendLine("		Integer id = tokenizerIds.get(tokenizer);");
+		$this->appendLine("		if(id == null) {");
+		$this->appendLine("			return null;");
+		$this->appendLine("		}");
+		$this->appendLine("		");
+		$this->appendLine("		switch(id) {");
+		foreach($objectTypes as $id => $classNode)
+		{
+			$type = $this->getJavaTypeName($classNode->getAttribute("name"));
+			$this->appendLine("			case $id: return new $type.TokenizerImpl(prefix);");
+		}
+		$this->appendLine("			default: return null;");
+		$this->appendLine("		}");
+		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	private static ObjectBase newInstance(int id) {");
+		$this->appendLine("		switch(id) {");
+		foreach($objectTypes as $id => $classNode)
+		{
+			if($classNode->hasAttribute("abstract"))
+				continue;
+			
+			$type = $this->getJavaTypeName($classNode->getAttribute("name"));
+			$this->appendLine("			case $id: return new $type();");
+		}
+		$this->appendLine("			default: return null;");
+		$this->appendLine("		}");
+		$this->appendLine("	}");
+		$this->appendLine("}");
+		
+		$this->addFile($this->_baseClientPath . "/types/TypeRegistry.java", $this->getTextBlock());
+	}
+	
 	public function generateMultiRequestTokens(array &$imports, $classNode, $baseClass) {
 		$this->appendLine("	");
 		$this->appendLine("	public interface Tokenizer extends $baseClass.Tokenizer {");
 
 		$hasProperties = false;
+		$implementation = array();
 		foreach($classNode->childNodes as $propertyNode)
 		{
 			if($propertyNode->nodeType != XML_ELEMENT_NODE) {
@@ -310,34 +571,55 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 			}
 			
 			$hasProperties = true;			
-			$propName = $this->replaceReservedWords($propertyNode->getAttribute("name"));
+			$name = $propertyNode->getAttribute("name");
+			$propName = $this->replaceReservedWords($name);
 			$propType = $propertyNode->getAttribute("type");
 			
 			if($this->isSimpleType($propType)) {
-				$this->appendLine("		String $propName();");
+				$returnType = "String";
+				$value = "token(\"$name\")";
 			}
 			elseif ($propType == 'array') {
 				$arrayType = $this->getJavaTypeName($propertyNode->getAttribute("arrayType"));
-				$this->appendLine("		RequestBuilder.ListTokenizer<$arrayType.Tokenizer> $propName();");
+				$returnType = "RequestBuilder.ListTokenizer<$arrayType.Tokenizer>";
+				$value = "new $returnType($arrayType.Tokenizer.class, path(\"$name\"))";
 				$imports[] = 'import com.kaltura.client.utils.request.RequestBuilder;';
 			}
 			elseif ($propType == 'map') {
 				$arrayType = $this->getJavaTypeName($propertyNode->getAttribute("arrayType"));
-				$this->appendLine("		RequestBuilder.MapTokenizer<$arrayType.Tokenizer> $propName();");
+				$returnType = "RequestBuilder.MapTokenizer<$arrayType.Tokenizer>";
+				$value = "new $returnType($arrayType.Tokenizer.class, path(\"$name\"))";
 				$imports[] = 'import com.kaltura.client.utils.request.RequestBuilder;';
 			}
 			elseif (preg_match('/ListResponse$/', $propType)) {
 				$arrayType = $this->getJavaTypeName($propertyNode->getAttribute("arrayType"));
-				$this->appendLine("		ListResponse.Tokenizer<$arrayType.Tokenizer> $propName();");
+				$returnType = "ListResponse.Tokenizer<$arrayType.Tokenizer>";
+				$value = "new RequestBuilder.ListResponseTokenizer<$arrayType.Tokenizer>($arrayType.Tokenizer.class, path(\"$name\"))";
 				$imports[] = 'import com.kaltura.client.types.ListResponse;';
+				$imports[] = 'import com.kaltura.client.utils.request.RequestBuilder;';
 			}
 			else {
 				$propType = $this->getJavaTypeName($propType);
-				$this->appendLine("		$propType.Tokenizer $propName();");
+				$returnType = "$propType.Tokenizer";
+				$value = "new $propType.TokenizerImpl(path(\"$name\"))";
 			}
+			
+			$this->appendLine("		$returnType $propName();");
+			$implementation[] = "		@Override";
+			$implementation[] = "		public $returnType $propName() {";
+			$implementation[] = "			return $value;";
+			$implementation[] = "		}";
 		}
 		
 		$this->appendLine("	}");
+		$this->appendLine("	");
+		$this->appendLine("	public static class TokenizerImpl extends $baseClass.TokenizerImpl implements Tokenizer {");
+		$this->appendLine("		public TokenizerImpl(String prefix) {");
+		$this->appendLine("			super(prefix);");
+		$this->appendLine("		}");
+		foreach($implementation as $line)
+			$this->appendLine($line);
+		$this->appendLine("	}");
 		
 		return $hasProperties;
 	}
@@ -449,6 +731,79 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$this->appendLine("	}");
 	}
 
+	public function generateWriteToMethod(array &$imports, $classNode)
+	{
+		$imports[] = "import com.google.gson.stream.JsonWriter;";
+		$imports[] = "import java.io.IOException;";
+
+		$type = $classNode->getAttribute("name");
+		$this->appendLine("	@Override");
+		$this->appendLine("	public void writeTo(JsonWriter writer) throws IOException {");
+		$this->appendLine("		writer.beginObject();");
+		$this->appendLine("		writer.name(\"objectType\").value(\"$type\");");
+		$this->appendLine("		writeFields(writer);");
+		$this->appendLine("		writer.endObject();");
+		$this->appendLine("	}");
+		$this->appendLine("");
+		$this->appendLine("	@Override");
+		$this->appendLine("	protected void writeFields(JsonWriter writer) throws IOException {");
+		$this->appendLine("		super.writeFields(writer);");
+		
+		foreach($classNode->childNodes as $propertyNode) 
+		{
+			if($propertyNode->nodeType != XML_ELEMENT_NODE)
+				continue;
+			
+			// read only properties are skipped, same as in toParams
+			$propReadOnly = $propertyNode->getAttribute("readOnly");
+			if($propReadOnly == "1")
+				continue;
+			
+			$propName = $propertyNode->getAttribute("name");
+			$this->appendLine("		writeParam(writer, \"$propName\", this.$propName);");
+		}
+		$this->appendLine("	}");
+	}
+
+	public function generateReadFieldMethod(array &$imports, $classNode)
+	{
+		$imports[] = "import com.google.gson.stream.JsonReader;";
+		$imports[] = "import java.io.IOException;";
+
+		$type = $this->getJavaTypeName($classNode->getAttribute("name"));
+		$this->appendLine("	@Override");
+		$this->appendLine("	public boolean readField(String name, JsonReader reader) throws IOException, APIException {");
+		$this->appendLine("		switch(name) {");
+		
+		$propNames = array();
+		foreach($classNode->childNodes as $propertyNode) 
+		{
+			if($propertyNode->nodeType != XML_ELEMENT_NODE)
+				continue;
+			
+			$propName = $propertyNode->getAttribute("name");
+			$propType = $propertyNode->getAttribute("type");
+			$propNames[] = $propName;
+			$this->appendLine("			case \"$propName\":");
+			$this->appendLine("				this.$propName = " . $this->getPropertyValue($propName, $propType, $propertyNode, true) . ";");
+			$this->appendLine("				return true;");
+		}
+		$this->appendLine("			default:");
+		$this->appendLine("				return super.readField(name, reader);");
+		$this->appendLine("		}");
+		$this->appendLine("	}");
+		$this->appendLine("");
+		$this->appendLine("	@Override");
+		$this->appendLine("	public void copyFields(ObjectBase source) {");
+		$this->appendLine("		super.copyFields(source);");
+		$this->appendLine("		if(source instanceof $type) {");
+		$this->appendLine("			$type other = ($type) source;");
+		foreach($propNames as $propName)
+			$this->appendLine("			this.$propName = other.$propName;");
+		$this->appendLine("		}");
+		$this->appendLine("	}");
+	}
+
 	public function generateJsonConstructor(array &$imports, $classNode, $needsSuperConstructor)
 	{
 		$imports[] = "import com.google.gson.JsonObject;";
@@ -484,7 +839,7 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		$this->appendLine("	}");
 	}
 	
-	public function getPropertyValue($propName, $propType, $propertyNode) {
+	public function getPropertyValue($propName, $propType, $propertyNode, $streaming = false) {
 		$propEnumType = null;
 		$primitiveType = "";
 
@@ -512,11 +867,15 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 
 			case "map":
 				$propArrayType = $this->getJavaTypeName($propertyNode->getAttribute("arrayType"));
+				if($streaming)
+					return "GsonParser.readMap(reader, $propArrayType.class)";
 				return "GsonParser.parseMap(jsonObject.getAsJsonObject(\"".$propName."\"), ". $propArrayType.".class)";
 				break;
 
 			case "array":
 				$propArrayType = $this->getJavaTypeName($propertyNode->getAttribute("arrayType"));
+				if($streaming)
+					return "GsonParser.readArray(reader, $propArrayType.class)";
 				return "GsonParser.parseArray(jsonObject.getAsJsonArray(\"".$propName."\"), ". $propArrayType.".class)";
 				break;
 
@@ -528,6 +887,8 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 		if($primitiveType != ""){
 			$methodName = $this->upperCaseFirstLetter($primitiveType);
 			$parsedProperty = "GsonParser.parse{$methodName}(jsonObject.get(\"".$propName."\"))";
+			if($streaming)
+				$parsedProperty = "GsonParser.read{$methodName}(reader)";
 			if($propEnumType != null) {
 				$parsedProperty = $propEnumType . ".get(".$parsedProperty.")";
 			}
@@ -535,6 +896,8 @@ class Java2ClientGenerator extends ClientGeneratorFromXml
 
 		} else {
 			$propType = $this->getJavaTypeName($propType);
+			if($streaming)
+				return "GsonParser.readObject(reader, $propType.class)";
 			return "GsonParser.parseObject(jsonObject.getAsJsonObject(\"$propName\"), $propType.class)";
 		}
 
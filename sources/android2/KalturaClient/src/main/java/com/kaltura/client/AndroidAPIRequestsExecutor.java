@@ -6,7 +6,6 @@ import android.os.Looper;
 
 import com.kaltura.client.utils.request.ConnectionConfiguration;
 import com.kaltura.client.utils.request.RequestElement;
-import com.kaltura.client.utils.response.base.ResponseElement;
 
 /**
  * @hide
@@ -47,10 +46,11 @@ public class AndroidAPIRequestsExecutor extends APIOkRequestsExecutor {
     }
 
 
+    /**
+     * Completions are passed to the handler's thread when one is set, responses are parsed before, on the calling thread.
+     */
     @Override
-    protected void postCompletion(final RequestElement action, ResponseElement responseElement) {
-        final com.kaltura.client.utils.response.base.Response<?> apiResponse = action.parseResponse(responseElement);
-
+    protected void deliverCompletion(final RequestElement action, final com.kaltura.client.utils.response.base.Response<?> apiResponse) {
         if (handler != null) {
             handler.post(new Runnable() {
                 @Override
@@ -59,7 +59,15 @@ public class AndroidAPIRequestsExecutor extends APIOkRequestsExecutor {
                 }
             });
         } else {
-            action.onComplete(apiResponse);
+            super.deliverCompletion(action, apiResponse);
         }
     }
+
+    /**
+     * The handler's thread is where completions are delivered, e.g. the main thread of {@link #getExecutor()}.
+     */
+    @Override
+    public boolean isDeliveryThread() {
+        return (handler != null && handler.getLooper() == Looper.myLooper()) || super.isDeliveryThread();
+    }
 }
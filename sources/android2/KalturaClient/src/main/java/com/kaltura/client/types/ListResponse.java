@@ -31,9 +31,11 @@ import android.os.Parcel;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.kaltura.client.Params;
 import com.kaltura.client.utils.GsonParser;
 import com.kaltura.client.utils.request.RequestBuilder;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -93,6 +95,14 @@ public class ListResponse<T> extends ObjectBase {
         return kparams;
     }
 
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("objectType").value("KalturaListResponse");
+        writeFields(writer);
+        writer.endObject();
+    }
+
     public static final Creator<ListResponse> CREATOR = new Creator<ListResponse>() {
         @Override
         public ListResponse createFromParcel(Parcel source) {
@@ -2,15 +2,22 @@ package com.kaltura.client;
 
 
 import com.kaltura.client.utils.ErrorElement;
+import com.kaltura.client.utils.GsonParser;
+import com.kaltura.client.utils.request.CompositeRequestElement;
 import com.kaltura.client.utils.request.ConnectionConfiguration;
+import com.kaltura.client.utils.request.EncodedRequestElement;
 import com.kaltura.client.utils.request.ExecutedRequest;
+import com.kaltura.client.utils.request.ExtendedConnectionConfiguration;
 import com.kaltura.client.utils.request.RequestElement;
+import com.kaltura.client.utils.request.StreamingRequestElement;
+import com.kaltura.client.utils.request.interceptor.GzipInterceptor;
 import com.kaltura.client.utils.response.base.ResponseElement;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -23,6 +30,7 @@ import okhttp3.Callback;
 import okhttp3.ConnectionPool;
 import okhttp3.Dispatcher;
 import okhttp3.Headers;
+import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.MultipartBody.Builder;
@@ -47,14 +55,18 @@ public class APIOkRequestsExecutor implements RequestQueue {
         String factorId(String factor);
     }
 
-    private static class InputStreamRequestBody extends RequestBody {
+    /**
+     * Streams the file content with the exact length declared by the holder,
+     * so multipart bodies are sent with a content length instead of chunked encoding.
+     */
+    private static class FileHolderRequestBody extends RequestBody {
 
-        private InputStream inputStream;
+        private FileHolder fileHolder;
         private MediaType mediaType;
 
-        public InputStreamRequestBody(MediaType mediaType, InputStream inputStream) {
+        public FileHolderRequestBody(MediaType mediaType, FileHolder fileHolder) {
             this.mediaType = mediaType;
-            this.inputStream = inputStream;
+            this.fileHolder = fileHolder;
         }
 
         @Override
@@ -64,19 +76,16 @@ public class APIOkRequestsExecutor implements RequestQueue {
 
         @Override
         public long contentLength() {
-            try {
-                return inputStream.available();
-            } catch (IOException e) {
-                return 0;
-            }
+            return fileHolder.getSize();
         }
 
         @Override
         public void writeTo(BufferedSink sink) throws IOException {
             Source source = null;
             try {
-                source = Okio.source(inputStream);
-                sink.writeAll(source);
+                // file backed holders open a new stream on every call, so retries are supported for them
+                source = fileHolder.getFile() != null ? Okio.source(fileHolder.getFile()) : Okio.source(fileHolder.getInputStream());
+                sink.write(source, fileHolder.getSize());
             } finally {
                 Util.closeQuietly(source);
             }
@@ -137,8 +146,11 @@ public class APIOkRequestsExecutor implements RequestQueue {
     
 
     private OkHttpClient mOkClient;
+    private GzipInterceptor.Metrics compressionMetrics = new GzipInterceptor.Metrics();
     private boolean enableLogs = true;
+    private int maxLoggedBodySize = 4096;
     private Set<String> enableLogHeaders = new HashSet<String>();
+    private final ThreadLocal<Boolean> delivering = new ThreadLocal<Boolean>();
 
     protected static ILogger logger = Logger.getLogger(TAG);
 
@@ -202,9 +214,28 @@ public class APIOkRequestsExecutor implements RequestQueue {
         	builder.hostnameVerifier(hostnameVerifier);
         }
 
+        // builders copied from the default client already hold its compression settings
+        Iterator<Interceptor> interceptors = builder.interceptors().iterator();
+        while(interceptors.hasNext()) {
+        	if(interceptors.next() instanceof GzipInterceptor) {
+        		interceptors.remove();
+        	}
+        }
+        int compressionMinSize = ExtendedConnectionConfiguration.Values.getRequestCompressionMinSize(config);
+        if(compressionMinSize >= 0) {
+        	builder.addInterceptor(new GzipInterceptor(compressionMinSize, ExtendedConnectionConfiguration.Values.getRequestCompressionLevel(config), compressionMetrics));
+        }
+
         return builder;
     }
 
+    /**
+     * @return accumulated request compression counters (bytes saved, time spent) of all requests sent by this executor
+     */
+    public GzipInterceptor.Metrics getRequestCompressionMetrics() {
+        return compressionMetrics;
+    }
+
     @Override
     public void setDefaultConfiguration(ConnectionConfiguration defaultConfiguration) {
         this.defaultConfiguration = defaultConfiguration;
@@ -221,6 +252,16 @@ public class APIOkRequestsExecutor implements RequestQueue {
         }
     }
 
+    /**
+     * Limits the logged request and response bodies, so large uploads or error pages
+     * are not copied into the log in full.
+     * 
+     * @param size maximal number of characters logged of each body, default 4096, negative value logs whole bodies
+     */
+    public void setMaxLoggedBodySize(int size) {
+        this.maxLoggedBodySize = size;
+    }
+
     @Override
     public void enableLogResponseHeader(String header, boolean log) {
     	if(log) {
@@ -236,6 +277,9 @@ public class APIOkRequestsExecutor implements RequestQueue {
     @SuppressWarnings("rawtypes")
 	@Override
     public String queue(final RequestElement requestElement) {
+        if (requestElement instanceof CompositeRequestElement) {
+            return ((CompositeRequestElement) requestElement).queue(this);
+        }
         final Request request = buildRestRequest(requestElement);
         return queue(request, requestElement);
     }
@@ -265,6 +309,11 @@ public class APIOkRequestsExecutor implements RequestQueue {
                         return;
                     }
 
+                    if (response.isSuccessful() && action instanceof StreamingRequestElement && ((StreamingRequestElement) action).isStreaming()) {
+                        onGotStream(response, (StreamingRequestElement) action);
+                        return;
+                    }
+
                     // pass parsed response to action completion block
                     postCompletion(action, onGotResponse(response, action));
                 }
@@ -280,11 +329,47 @@ public class APIOkRequestsExecutor implements RequestQueue {
         return null; // no call id to return.
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
+    /**
+     * Parses the response on the calling thread and delivers it, see {@link #deliverCompletion}.
+     */
+    @SuppressWarnings("rawtypes")
 	protected void postCompletion(final RequestElement action, ResponseElement responseElement) {
 
         final com.kaltura.client.utils.response.base.Response<?> apiResponse = action.parseResponse(responseElement);
-        action.onComplete(apiResponse);
+        deliverCompletion(action, apiResponse);
+    }
+
+    /**
+     * Passes a parsed response to the request's completion, on the calling thread.
+     * All completions of queued requests go through here, including streamed responses,
+     * sub-classes override it to deliver them on another thread.
+     *
+     * @param action the completed request
+     * @param apiResponse parsed response
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+	protected void deliverCompletion(final RequestElement action, com.kaltura.client.utils.response.base.Response<?> apiResponse) {
+        boolean nested = isDeliveryThread();
+        delivering.set(Boolean.TRUE);
+        try {
+            action.onComplete(apiResponse);
+        } finally {
+            if(!nested) {
+                delivering.remove();
+            }
+        }
+    }
+
+    /**
+     * A completion that waits for another request of this executor, e.g. by iterating a
+     * {@link com.kaltura.client.utils.request.ListPager}, may wait forever, since the other
+     * request is completed on the same thread or needs the connection the completion holds.
+     *
+     * @return true when called from a completion of this executor, or from the thread
+     * completions are delivered on
+     */
+    public boolean isDeliveryThread() {
+        return delivering.get() != null;
     }
 
 
@@ -295,6 +380,9 @@ public class APIOkRequestsExecutor implements RequestQueue {
     @SuppressWarnings("rawtypes")
 	@Override
     public com.kaltura.client.utils.response.base.Response<?> execute(RequestElement request) {
+        if (request instanceof CompositeRequestElement) {
+            return ((CompositeRequestElement) request).execute(this);
+        }
         try {
             Response response = getOkClient(request.config()).newCall(buildRestRequest(request)).execute();
             return request.parseResponse(onGotResponse(response, request));
@@ -355,26 +443,41 @@ public class APIOkRequestsExecutor implements RequestQueue {
         return mOkClient == null || mOkClient.dispatcher().queuedCallsCount() == 0;
     }
 
+    /**
+     * Parses a successful response while its body is received, the body is not logged.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+	private void onGotStream(final Response response, StreamingRequestElement action) {
+        final String requestId = getRequestId(response);
+        logResponseHeaders(response, requestId);
+        if (enableLogs) {
+        	logger.debug("response [" + requestId + "] body is streamed to the parser");
+        }
+
+        ResponseElement responseElement = new ExecutedRequest().requestId(requestId).headers(response.headers().toMultimap()).code(response.code()).success(true);
+        com.kaltura.client.utils.response.base.Response<?> apiResponse;
+        try {
+            apiResponse = action.parseResponse(responseElement, response.body().charStream(), new StreamingRequestElement.Delivery() {
+                @Override
+                public void deliver(RequestElement<?> request, com.kaltura.client.utils.response.base.Response<?> apiResponse) {
+                    deliverCompletion(request, apiResponse);
+                }
+            });
+        } finally {
+            response.body().close();
+        }
+        deliverCompletion(action, apiResponse);
+    }
+
     @SuppressWarnings("rawtypes")
 	protected ResponseElement onGotResponse(final Response response, RequestElement action) {
         final String requestId = getRequestId(response);
         
-        if(this.enableLogHeaders.contains("*")) {
-        	logger.debug("response [" + requestId + "] Response: " + response.code() + " " + response.message());
-        	for(String header : response.headers().names()) {        		
-			    logger.debug("response [" + requestId + "] " + header + ": " + response.headers().get(header));
-			}
-        }
-        else {
-        	for(String header : this.enableLogHeaders) {
-		        String value = response.headers().get(header);
-		        if (value != null) {
-		            logger.debug("response [" + requestId + "] " + header + ": " + value);
-		        }
-			}
-        }
+        logResponseHeaders(response, requestId);
         
         if (!response.isSuccessful()) { // in case response has failure status
+            // the body, e.g. a proxy error page, is not used, release the connection without reading it
+            response.body().close();
             return new ExecutedRequest().requestId(requestId).headers(response.headers().toMultimap()).error(ErrorElement.fromCode(response.code(), response.message())).success(false);
 
         } else {
@@ -388,13 +491,30 @@ public class APIOkRequestsExecutor implements RequestQueue {
             }
 
             if (enableLogs) {
-            	logger.debug("response [" + requestId + "] body:\n" + responseString);
+            	logger.debug("response [" + requestId + "] body:\n" + GsonParser.truncate(responseString, maxLoggedBodySize));
             }
             
             return new ExecutedRequest().requestId(requestId).response(responseString).headers(response.headers().toMultimap()).code(response.code()).success(responseString != null);
         }
     }
 
+    private void logResponseHeaders(final Response response, String requestId) {
+        if(this.enableLogHeaders.contains("*")) {
+        	logger.debug("response [" + requestId + "] Response: " + response.code() + " " + response.message());
+        	for(String header : response.headers().names()) {        		
+			    logger.debug("response [" + requestId + "] " + header + ": " + response.headers().get(header));
+			}
+        }
+        else {
+        	for(String header : this.enableLogHeaders) {
+		        String value = response.headers().get(header);
+		        if (value != null) {
+		            logger.debug("response [" + requestId + "] " + header + ": " + value);
+		        }
+			}
+        }
+    }
+
     protected String getRequestId(Response response) {
         try {
             return response.request().tag().toString();
@@ -411,11 +531,24 @@ public class APIOkRequestsExecutor implements RequestQueue {
             @SuppressWarnings("rawtypes")
 			@Override
             public RequestBody build(RequestElement requestElement) {
-                return requestElement.getBody() != null ? RequestBody.create(JSON_MediaType, requestElement.getBody().getBytes()) : null;
+                byte[] body = getBodyBytes(requestElement);
+                return body != null ? RequestBody.create(JSON_MediaType, body) : null;
             }
         };
     }
 
+    /**
+     * @return the body of the request as sent, encoded by the request itself when it supports it
+     */
+    @SuppressWarnings("rawtypes")
+    private static byte[] getBodyBytes(RequestElement request) {
+        if (request instanceof EncodedRequestElement) {
+            return ((EncodedRequestElement) request).getBodyBytes();
+        }
+        String body = request.getBody();
+        return body != null ? body.getBytes(Util.UTF_8) : null;
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
 	private Request buildRestRequest(RequestElement request) {
 
@@ -425,20 +558,15 @@ public class APIOkRequestsExecutor implements RequestQueue {
 	        body = BodyBuilder.Default.build(request);
     	}
     	else {
+    		// all parts have exact lengths, so the multipart body length is known up front
     		Builder bodyBuilder = new MultipartBody.Builder()
 	        .setType(MultipartBody.FORM)
-	        .addFormDataPart("json", request.getBody());
+	        .addFormDataPart("json", null, RequestBody.create(null, getBodyBytes(request)));
     		
-    		for(String fieldName : files.keySet()) {
-    			FileHolder fileHolder = files.get(fieldName);
-    			MediaType mediaType = MediaType.parse(fileHolder.getMimeType()); 
-    			
-    			if(fileHolder.getFile() != null) { 
-    				bodyBuilder.addFormDataPart(fieldName, fileHolder.getName(), RequestBody.create(mediaType, fileHolder.getFile()));
-    			}
-    			else if(fileHolder.getInputStream() != null) {
-    				bodyBuilder.addFormDataPart(fieldName, fileHolder.getName(), new InputStreamRequestBody(mediaType, fileHolder.getInputStream()));
-    			}
+    		for(Map.Entry<String, FileHolder> file : files.entrySet()) {
+    			FileHolder fileHolder = file.getValue();
+    			MediaType mediaType = fileHolder.getMimeType() != null ? MediaType.parse(fileHolder.getMimeType()) : null; 
+    			bodyBuilder.addFormDataPart(file.getKey(), fileHolder.getName(), new FileHolderRequestBody(mediaType, fileHolder));
     		}
     		body = bodyBuilder.build();
     	}
@@ -447,7 +575,7 @@ public class APIOkRequestsExecutor implements RequestQueue {
 
         String requestId = idFactory.factorId(request.getTag());
         if (enableLogs) {
-        	logger.debug("request [" + requestId + "] url: " + url + "\nbody:\n" + request.getBody() + "\n");
+        	logger.debug("request [" + requestId + "] url: " + url + "\nbody:\n" + GsonParser.truncate(request.getBody(), maxLoggedBodySize) + "\n");
         }
 
         return new Request.Builder()
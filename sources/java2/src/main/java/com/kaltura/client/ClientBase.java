@@ -32,7 +32,6 @@ import com.kaltura.client.utils.EncryptionUtils;
 import com.kaltura.client.utils.request.ConnectionConfiguration;
 import org.apache.commons.codec.binary.Base64;
 
-import java.net.URLEncoder;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Random;
@@ -40,8 +39,6 @@ import java.util.Random;
 @SuppressWarnings("serial")
 public class ClientBase extends ClientConfigBase {
 
-	private static final String UTF8_CHARSET = "UTF-8";
-
     // KS v2 constants
     private static final String FIELD_EXPIRY = "_e";
     private static final String FIELD_USER = "_u";
@@ -140,7 +137,7 @@ public class ClientBase extends ClientConfigBase {
 			
 			String[] splittedPriv = privilege.split(":");
 			if(splittedPriv.length>1) {
-				fields.add(splittedPriv[0], URLEncoder.encode(splittedPriv[1], UTF8_CHARSET));
+				fields.add(splittedPriv[0], splittedPriv[1]);
 			} else {
 				fields.add(splittedPriv[0], "");
 			}
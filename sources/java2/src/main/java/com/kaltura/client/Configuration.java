@@ -28,10 +28,12 @@
 package com.kaltura.client;
 
 import com.kaltura.client.utils.request.ConnectionConfiguration;
+import com.kaltura.client.utils.request.ExtendedConnectionConfiguration;
 
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * This class holds information needed by the Kaltura client to establish a session.
@@ -39,7 +41,7 @@ import java.util.Map;
  * @author jpotts
  *
  */
-public class Configuration implements Serializable, ConnectionConfiguration {
+public class Configuration implements Serializable, ExtendedConnectionConfiguration {
 
 	private static final long serialVersionUID = 2096581946429839651L;
 	
@@ -51,6 +53,12 @@ public class Configuration implements Serializable, ConnectionConfiguration {
 	public final static String AcceptGzipEncoding = "acceptGzipEncoding";
 	public final static String ResponseTypeFormat = "responseTypeFormat";
 	public final static String IgnoreSslDomainVerification = "ignoreSslDomainVerification";
+	public final static String RequestCompressionMinSize = "requestCompressionMinSize";
+	public final static String RequestCompressionLevel = "requestCompressionLevel";
+	public final static String ParallelParseThreshold = "parallelParseThreshold";
+	public final static String MaxErrorBodySize = "maxErrorBodySize";
+	public final static String MultiRequestMaxCalls = "multiRequestMaxCalls";
+	public final static String MultiRequestMaxSize = "multiRequestMaxSize";
 
 	private Map<String, Object> params;
 
@@ -77,6 +85,12 @@ public class Configuration implements Serializable, ConnectionConfiguration {
 		params.put(ResponseTypeFormat, config.getTypeFormat());
 		params.put(IgnoreSslDomainVerification, config.getIgnoreSslDomainVerification());
 		params.put(EndPoint, config.getEndpoint());
+		params.put(RequestCompressionMinSize, ExtendedConnectionConfiguration.Values.getRequestCompressionMinSize(config));
+		params.put(RequestCompressionLevel, ExtendedConnectionConfiguration.Values.getRequestCompressionLevel(config));
+		params.put(ParallelParseThreshold, ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config));
+		params.put(MaxErrorBodySize, ExtendedConnectionConfiguration.Values.getMaxErrorBodySize(config));
+		params.put(MultiRequestMaxCalls, ExtendedConnectionConfiguration.Values.getMultiRequestMaxCalls(config));
+		params.put(MultiRequestMaxSize, ExtendedConnectionConfiguration.Values.getMultiRequestMaxSize(config));
 	}
 
 	private void initDefaults() {
@@ -89,6 +103,12 @@ public class Configuration implements Serializable, ConnectionConfiguration {
 		params.put(ResponseTypeFormat, ServiceResponseTypeFormat.RESPONSE_TYPE_JSON.getValue());
 		params.put(IgnoreSslDomainVerification, false);
 		params.put(EndPoint, "http://www.kaltura.com/");
+		params.put(RequestCompressionMinSize, -1);
+		params.put(RequestCompressionLevel, Deflater.DEFAULT_COMPRESSION);
+		params.put(ParallelParseThreshold, -1);
+		params.put(MaxErrorBodySize, 0);
+		params.put(MultiRequestMaxCalls, -1);
+		params.put(MultiRequestMaxSize, -1);
 	}
 
 
@@ -186,6 +206,101 @@ public class Configuration implements Serializable, ConnectionConfiguration {
 		return ServiceResponseTypeFormat.get((int) params.get(ResponseTypeFormat));
 	}
 
+	/**
+	 * Return the minimal request body size, in bytes, that is sent gzip compressed.
+	 * Negative value means request bodies are never compressed.
+	 */
+	public int getRequestCompressionMinSize() {
+		return params.containsKey(RequestCompressionMinSize) ? (int) params.get(RequestCompressionMinSize) : -1;
+	}
+
+	/**
+	 * Set the minimal request body size, in bytes, that is sent gzip compressed
+	 * with "Content-Encoding: gzip" header. Multipart uploads are never compressed.
+	 * <p>Default is -1, compression disabled.
+	 * 
+	 * @param minSize minimal size in bytes, negative value to disable
+	 */
+	public void setRequestCompressionMinSize(int minSize) {
+		params.put(RequestCompressionMinSize, minSize);
+	}
+
+	public int getRequestCompressionLevel() {
+		return params.containsKey(RequestCompressionLevel) ? (int) params.get(RequestCompressionLevel) : Deflater.DEFAULT_COMPRESSION;
+	}
+
+	/**
+	 * @param level deflate level of compressed request bodies, 0-9 or -1 for the default level
+	 */
+	public void setRequestCompressionLevel(int level) {
+		params.put(RequestCompressionLevel, level);
+	}
+
+	public int getParallelParseThreshold() {
+		return params.containsKey(ParallelParseThreshold) ? (int) params.get(ParallelParseThreshold) : -1;
+	}
+
+	/**
+	 * Set the minimal number of items in a list or multi-request response for the items to be
+	 * parsed in parallel, on a shared fork-join pool. Order of the results and per-item errors
+	 * are the same as with sequential parsing. Parallel parsing reads the response into a JSON
+	 * tree first, list and array responses that are too short for it are streamed as usual.
+	 * <p>Default is -1, parallel parsing disabled.
+	 * 
+	 * @param threshold minimal number of items, negative value to disable
+	 */
+	public void setParallelParseThreshold(int threshold) {
+		params.put(ParallelParseThreshold, threshold);
+	}
+
+	public int getMaxErrorBodySize() {
+		return params.containsKey(MaxErrorBodySize) ? (int) params.get(MaxErrorBodySize) : 0;
+	}
+
+	/**
+	 * Set how much of a response that fails parsing is kept on the thrown exception, available
+	 * through {@link com.kaltura.client.types.APIException#getResponseBody()}. Exception messages
+	 * only quote the start of the body, so a large error page returned by a proxy is not copied
+	 * into every message and log.
+	 * <p>Default is 0, the body is not kept.
+	 * 
+	 * @param size maximal number of characters, negative value to keep the whole body
+	 */
+	public void setMaxErrorBodySize(int size) {
+		params.put(MaxErrorBodySize, size);
+	}
+
+	public int getMultiRequestMaxCalls() {
+		return params.containsKey(MultiRequestMaxCalls) ? (int) params.get(MultiRequestMaxCalls) : -1;
+	}
+
+	/**
+	 * Set the maximal number of calls sent in one multi-request, larger multi-requests are split
+	 * into chunks that are sent as separate multi-requests, see {@link com.kaltura.client.utils.request.ChunkedMultiRequest}.
+	 * <p>Default is -1, no limit.
+	 * 
+	 * @param maxCalls maximal number of calls, negative value for no limit
+	 */
+	public void setMultiRequestMaxCalls(int maxCalls) {
+		params.put(MultiRequestMaxCalls, maxCalls);
+	}
+
+	public int getMultiRequestMaxSize() {
+		return params.containsKey(MultiRequestMaxSize) ? (int) params.get(MultiRequestMaxSize) : -1;
+	}
+
+	/**
+	 * Set the maximal size of the calls sent in one multi-request, larger multi-requests are split
+	 * into chunks, a single call larger than the limit is sent alone. The size is the encoded
+	 * parameters of the calls, without the session and client parameters added to each chunk.
+	 * <p>Default is -1, no limit.
+	 * 
+	 * @param maxSize maximal size in bytes, negative value for no limit
+	 */
+	public void setMultiRequestMaxSize(int maxSize) {
+		params.put(MultiRequestMaxSize, maxSize);
+	}
+
 	public void setMaxRetry(int retry) {
 		params.put(MaxRetry, retry);
 	}
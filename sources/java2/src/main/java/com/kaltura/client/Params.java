@@ -28,12 +28,15 @@
 package com.kaltura.client;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.kaltura.client.enums.EnumAsInt;
 import com.kaltura.client.enums.EnumAsString;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.types.ObjectBase;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.util.*;
 
 /**
@@ -48,39 +51,142 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 
 	private static Gson gson = new Gson();
 	
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private static final boolean[] UNRESERVED = new boolean[0x80];
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			UNRESERVED[c] = true;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			UNRESERVED[c] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			UNRESERVED[c] = true;
+		}
+		UNRESERVED['-'] = true;
+		UNRESERVED['.'] = true;
+		UNRESERVED['_'] = true;
+		UNRESERVED['~'] = true;
+	}
+
 	public String toQueryString() {
-		return toQueryString(null);
+		return appendQueryString(new StringBuilder(size() * 16)).toString();
 	}
 
 	public String toQueryString(String prefix) {
+		StringBuilder str = new StringBuilder(size() * 16);
+		StringBuilder keyPrefix = new StringBuilder();
+		if (prefix != null) {
+			encode(prefix, keyPrefix);
+		}
+		appendEntries(str, 0, keyPrefix, this);
+		return str.toString();
+	}
 
-		StringBuffer str = new StringBuffer();
-		Object value;
+	/**
+	 * Appends the url-encoded query string of these params to the given builder.
+	 * Nested params, lists and maps are flattened using the bracket syntax, e.g. filter[tags][0]=a.
+	 * 
+	 * @param str builder to append to, may already hold content (e.g. the url) and be reused between calls
+	 * @return the given builder
+	 */
+	public StringBuilder appendQueryString(StringBuilder str) {
+		appendEntries(str, str.length(), new StringBuilder(), this);
+		return str;
+	}
 
-		for (String key : getKeys()) {
-			if(!containsKey(key)){
-				continue;
+	private static void appendEntries(StringBuilder str, int start, StringBuilder prefix, Map<?, ?> map) {
+		int prefixLength = prefix.length();
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			if (prefixLength > 0) {
+				prefix.append('[');
+				encode(String.valueOf(entry.getKey()), prefix);
+				prefix.append(']');
+			} else {
+				encode(String.valueOf(entry.getKey()), prefix);
 			}
+			appendValue(str, start, prefix, entry.getValue());
+			prefix.setLength(prefixLength);
+		}
+	}
 
-			if (str.length() > 0) {
-				str.append("&");
+	private static void appendValue(StringBuilder str, int start, StringBuilder prefix, Object value) {
+		// common values are matched by class first, interface checks are considerably slower
+		if (value instanceof Params) {
+			appendEntries(str, start, prefix, (Params) value);
+		} else if (value instanceof ObjectBase) {
+			appendEntries(str, start, prefix, ((ObjectBase) value).toParams());
+		} else if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+			appendPair(str, start, prefix, value);
+		} else if (value instanceof Map) {
+			appendEntries(str, start, prefix, (Map<?, ?>) value);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			int prefixLength = prefix.length();
+			for (int i = 0; i < list.size(); i++) {
+				prefix.append('[').append(i).append(']');
+				appendValue(str, start, prefix, list.get(i));
+				prefix.setLength(prefixLength);
 			}
+		} else {
+			appendPair(str, start, prefix, value);
+		}
+	}
 
-			value = get(key);
+	private static void appendPair(StringBuilder str, int start, StringBuilder prefix, Object value) {
+		if (str.length() > start) {
+			str.append('&');
+		}
+		str.append(prefix).append('=');
+		if (value != null) {
+			encode(value.toString(), str);
+		}
+	}
 
-			if (prefix != null) {
-				key = prefix + "[" + key + "]";
+	/**
+	 * Percent-encodes the value as UTF-8, leaving only RFC 3986 unreserved characters as is.
+	 * Runs of unreserved characters are copied in one append.
+	 */
+	private static void encode(String value, StringBuilder str) {
+		int length = value.length();
+		int run = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80 && UNRESERVED[c]) {
+				continue;
 			}
-			if (value instanceof Params) {
-				str.append(((Params) value).toQueryString(key));
+
+			str.append(value, run, i);
+			if (c < 0x80) {
+				appendEscaped(str, c);
+			} else if (c < 0x800) {
+				appendEscaped(str, 0xC0 | (c >> 6));
+				appendEscaped(str, 0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				appendEscaped(str, 0xF0 | (codePoint >> 18));
+				appendEscaped(str, 0x80 | ((codePoint >> 12) & 0x3F));
+				appendEscaped(str, 0x80 | ((codePoint >> 6) & 0x3F));
+				appendEscaped(str, 0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				appendEscaped(str, '?'); // unpaired surrogate, same replacement String.getBytes uses
 			} else {
-				str.append(key);
-				str.append("=");
-				str.append(value);
+				appendEscaped(str, 0xE0 | (c >> 12));
+				appendEscaped(str, 0x80 | ((c >> 6) & 0x3F));
+				appendEscaped(str, 0x80 | (c & 0x3F));
 			}
+			run = i + 1;
 		}
 
-		return str.toString();
+		if (run == 0) {
+			str.append(value);
+		} else {
+			str.append(value, run, length);
+		}
+	}
+
+	private static void appendEscaped(StringBuilder str, int b) {
+		str.append('%').append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
 	}
 
 	public void add(String key, Integer value) {
@@ -150,12 +256,20 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 		}
 	}
 
+	/**
+	 * The object is kept as it is and serialized when the request is built, changes made to it
+	 * until then are sent with the request.
+	 * 
+	 * @param key param name
+	 * @param object param value
+	 */
 	public void add(String key, ObjectBase object) {
 		if (object == null || key == null)
 			return;
 
 
-		put(key, object.toParams());
+		// serialized on demand through ObjectBase.writeTo, see writeTo(JsonWriter)
+		put(key, object);
 	}
 
 	public <T extends ObjectBase> void add(String key, List<T> array) {
@@ -167,19 +281,8 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 			emptyParams.put("-", "");
 			put(key, emptyParams);
 
-		} else if(array.get(0) instanceof ObjectBase) {
-			List<Params> list = new ArrayList<Params>();
-			for(ObjectBase item : array) {
-				list.add(item.toParams());
-			}
-			put(key, list);
-		}
-		else {
-			List<String> list = new ArrayList<String>();
-			for(ObjectBase item : array) {
-				list.add(item.toString());
-			}
-			put(key, list);
+		} else {
+			put(key, new ArrayList<Object>(array));
 		}
 	}
 
@@ -213,6 +316,10 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 				if(destinationList.size() > index && destinationList.get(index) instanceof Params) {
 					destinationParams = (Params) destinationList.get(index);
 				}
+				else if(destinationList.size() > index && destinationList.get(index) instanceof ObjectBase) {
+					destinationParams = ((ObjectBase) destinationList.get(index)).toParams();
+					destinationList.set(index, destinationParams);
+				}
 				else {
 					destinationParams = new Params();
 					destinationList.add(destinationParams);
@@ -225,6 +332,10 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 			if(containsKey(destination) && get(destination) instanceof Params) {
 				destinationParams = (Params) get(destination);
 			}
+			else if(containsKey(destination) && get(destination) instanceof ObjectBase) {
+				destinationParams = ((ObjectBase) get(destination)).toParams();
+				put(destination, destinationParams);
+			}
 			else {
 				destinationParams = new Params();
 				put(destination, destinationParams);
@@ -245,13 +356,10 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 
 		} 
 		else {
-			Map<String, Params> items = new HashMap<String, Params>();
-			for(String subKey : map.keySet()) {
-				items.put(subKey, map.get(subKey).toParams());
-			}
+			Map<String, Object> items = new HashMap<String, Object>(map);
 			
 			if (containsKey(key) && get(key) instanceof Map) {
-				Map<String, Params> existingKeys = (Map<String, Params>) get(key);
+				Map<String, Object> existingKeys = (Map<String, Object>) get(key);
 				existingKeys.putAll(items);
 			} else {
 				put(key, items);
@@ -316,12 +424,76 @@ public class Params extends LinkedHashMap<String, Object> implements Serializabl
 		if (value instanceof Params)
 			return (Params) value;
 
+		if (value instanceof ObjectBase) {
+			Params params = ((ObjectBase) value).toParams();
+			put(key, params);
+			return params;
+		}
+
 		throw new APIException("Key value [" + key
 				+ "] is not instance of Params");
 	}
 
+	/**
+	 * Writes the params as a JSON object, objects are serialized through ObjectBase.writeTo.
+	 * Null values are left out unless the writer serializes nulls.
+	 * 
+	 * @param writer JSON writer of the request body
+	 * @throws IOException on write failure
+	 */
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		for (Map.Entry<String, Object> entry : entrySet()) {
+			writer.name(entry.getKey());
+			writeValue(writer, entry.getValue());
+		}
+		writer.endObject();
+	}
+
+	private static void writeValue(JsonWriter writer, Object value) throws IOException {
+		if (value instanceof Params) {
+			((Params) value).writeTo(writer);
+		} else if (value instanceof String) {
+			writer.value((String) value);
+		} else if (value instanceof Number) {
+			writer.value((Number) value);
+		} else if (value instanceof Boolean) {
+			writer.value(((Boolean) value).booleanValue());
+		} else if (value instanceof ObjectBase) {
+			((ObjectBase) value).writeTo(writer);
+		} else if (value == null) {
+			writer.nullValue();
+		} else if (value instanceof Map) {
+			writer.beginObject();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				writer.name(String.valueOf(entry.getKey()));
+				writeValue(writer, entry.getValue());
+			}
+			writer.endObject();
+		} else if (value instanceof List) {
+			writer.beginArray();
+			for (Object item : (List<?>) value) {
+				writeValue(writer, item);
+			}
+			writer.endArray();
+		} else {
+			gson.toJson(value, value.getClass(), writer);
+		}
+	}
+
 	@Override
 	public String toString() {
-		return gson.toJson(this);
+		StringWriter out = new StringWriter();
+		try {
+			JsonWriter writer = new JsonWriter(out);
+			// same output as Gson.toJson, which leaves null map values out
+			writer.setHtmlSafe(true);
+			writer.setSerializeNulls(false);
+			writeTo(writer);
+			writer.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // not thrown by StringWriter
+		}
+		return out.toString();
 	}
 }
@@ -53,6 +53,7 @@ public class APIException extends Exception implements ResponseType {
 	private String code = null;
     private String message = null;
     private FailureStep failedOn;
+    private transient String responseBody;
 
 	public APIException() {
 		super();
@@ -65,12 +66,14 @@ public class APIException extends Exception implements ResponseType {
 
 	public APIException(FailureStep step, String message) {
 		super(message);
+		this.message = message;
 		this.code = step.code;
 		this.failedOn = step;
 	}
 
 	public APIException(FailureStep step, String message, String excCode) {
 		super(message);
+		this.message = message;
 		failedOn = step;
 		code = excCode;
 	}
@@ -108,4 +111,18 @@ public class APIException extends Exception implements ResponseType {
 	public void setFailedOn(FailureStep failedOn) {
 		this.failedOn = failedOn;
 	}
+
+	/**
+	 * The message quotes only the start of an invalid response, the body itself is kept only
+	 * when the connection configuration allows it, see {@link com.kaltura.client.utils.request.ExtendedConnectionConfiguration#getMaxErrorBodySize()}.
+	 * 
+	 * @return the response that failed parsing, possibly truncated, or null if not kept
+	 */
+	public String getResponseBody() {
+		return responseBody;
+	}
+
+	public void setResponseBody(String responseBody) {
+		this.responseBody = responseBody;
+	}
 }
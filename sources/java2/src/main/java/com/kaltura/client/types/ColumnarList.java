@@ -0,0 +1,496 @@
+// ===================================================================================================
+//                           _  __     _ _
+//                          | |/ /__ _| | |_ _  _ _ _ __ _
+//                          | ' </ _` | |  _| || | '_/ _` |
+//                          |_|\_\__,_|_|\__|\_,_|_| \__,_|
+//
+// This file is part of the Kaltura Collaborative Media Suite which allows users
+// to do with audio, video, and animation what Wiki platfroms allow them to do with
+// text.
+//
+// Copyright (C) 2006-2011  Kaltura Inc.
+//
+// This program is free software: you can redistribute it and/or modify
+// it under the terms of the GNU Affero General Public License as
+// published by the Free Software Foundation, either version 3 of the
+// License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License
+// along with this program.  If not, see <http://www.gnu.org/licenses/>.
+//
+// @ignore
+// ===================================================================================================
+package com.kaltura.client.types;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.kaltura.client.utils.GsonParser;
+import com.kaltura.client.utils.response.ResponseType;
+
+/**
+ * Page of a list response decoded into one array per selected property, instead of an object per item.
+ * <p>
+ * Bulk reads that need few properties of many items hold primitive and string columns only,
+ * without object headers, boxed values and the unselected properties, e.g.
+ * <pre>
+ * ColumnarList.Schema schema = new ColumnarList.Schema().stringColumn("id").longColumn("createdAt").intColumn("duration");
+ * ColumnarList page = GsonParser.parseColumns(response, schema);
+ * ColumnarList.Cursor cursor = page.cursor();
+ * while(cursor.next()) {
+ *     String id = cursor.getString(0);
+ *     ...
+ * }
+ * </pre>
+ * Only top level properties of the listed objects are decoded, object and array values selected
+ * into a string column are kept as their JSON.
+ */
+public class ColumnarList implements ResponseType {
+
+	public enum ColumnType {
+		Long,
+		Int,
+		Double,
+		String
+	}
+
+	/**
+	 * Selected properties, in column order.
+	 */
+	public static class Schema {
+
+		private final List<String> names = new ArrayList<String>();
+		private final List<ColumnType> types = new ArrayList<ColumnType>();
+		private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+		public Schema longColumn(String name) {
+			return add(name, ColumnType.Long);
+		}
+
+		/**
+		 * Boolean values are decoded into int columns as 1 and 0.
+		 */
+		public Schema intColumn(String name) {
+			return add(name, ColumnType.Int);
+		}
+
+		public Schema doubleColumn(String name) {
+			return add(name, ColumnType.Double);
+		}
+
+		public Schema stringColumn(String name) {
+			return add(name, ColumnType.String);
+		}
+
+		private Schema add(String name, ColumnType type) {
+			if(indexes.containsKey(name)) {
+				throw new IllegalArgumentException("Column " + name + " is already selected");
+			}
+			indexes.put(name, names.size());
+			names.add(name);
+			types.add(type);
+			return this;
+		}
+
+		public int size() {
+			return names.size();
+		}
+
+		public String getName(int column) {
+			return names.get(column);
+		}
+
+		public ColumnType getType(int column) {
+			return types.get(column);
+		}
+
+		/**
+		 * @param name property name
+		 * @return column index or -1 if the property is not selected
+		 */
+		public int indexOf(String name) {
+			Integer index = indexes.get(name);
+			return index != null ? index : -1;
+		}
+	}
+
+	/**
+	 * Forward only position over the rows, starts before the first row.
+	 */
+	public class Cursor {
+
+		private int row = -1;
+
+		/**
+		 * @return true if moved to the next row, false if there are no more rows
+		 */
+		public boolean next() {
+			if(row < size) {
+				row++;
+			}
+			return row < size;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public boolean isNull(int column) {
+			return ColumnarList.this.isNull(row, column);
+		}
+
+		public long getLong(int column) {
+			return ((long[]) columns[column])[row];
+		}
+
+		public long getLong(String name) {
+			return getLong(column(name));
+		}
+
+		public int getInt(int column) {
+			return ((int[]) columns[column])[row];
+		}
+
+		public int getInt(String name) {
+			return getInt(column(name));
+		}
+
+		public double getDouble(int column) {
+			return ((double[]) columns[column])[row];
+		}
+
+		public double getDouble(String name) {
+			return getDouble(column(name));
+		}
+
+		public String getString(int column) {
+			return ((String[]) columns[column])[row];
+		}
+
+		public String getString(String name) {
+			return getString(column(name));
+		}
+	}
+
+	private static final int InitialCapacity = 64;
+
+	private final Schema schema;
+	private final Object[] columns;
+
+	/**
+	 * Rows that had a value, per column, absent properties and null values read as 0 in numeric columns.
+	 */
+	private final BitSet[] present;
+	private int size = 0;
+	private int capacity;
+	private int totalCount = Integer.MIN_VALUE;
+
+	private ColumnarList(Schema schema, int capacity) {
+		this.schema = schema;
+		this.capacity = capacity;
+		columns = new Object[schema.size()];
+		present = new BitSet[schema.size()];
+		for(int column = 0; column < columns.length; column++) {
+			present[column] = new BitSet();
+			switch(schema.getType(column)) {
+				case Long:
+					columns[column] = new long[capacity];
+					break;
+				case Int:
+					columns[column] = new int[capacity];
+					break;
+				case Double:
+					columns[column] = new double[capacity];
+					break;
+				default:
+					columns[column] = new String[capacity];
+					break;
+			}
+		}
+	}
+
+	public Schema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @return number of rows in this page
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return total number of items matching the filter, as returned by the server
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	public boolean isNull(int row, int column) {
+		return !present[column].get(row);
+	}
+
+	/**
+	 * @return the column values, of {@link #size()} length, shared with this list and must not be modified
+	 */
+	public long[] getLongColumn(String name) {
+		return (long[]) columns[column(name)];
+	}
+
+	public int[] getIntColumn(String name) {
+		return (int[]) columns[column(name)];
+	}
+
+	public double[] getDoubleColumn(String name) {
+		return (double[]) columns[column(name)];
+	}
+
+	public String[] getStringColumn(String name) {
+		return (String[]) columns[column(name)];
+	}
+
+	private int column(String name) {
+		int column = schema.indexOf(name);
+		if(column < 0) {
+			throw new IllegalArgumentException("Column " + name + " is not selected");
+		}
+		return column;
+	}
+
+	/**
+	 * Reads a streamed list response, possibly wrapped in a result object.
+	 *
+	 * @param reader JSON reader, positioned at the list response object
+	 * @param schema selected properties
+	 * @return the decoded page
+	 * @throws IOException on invalid JSON
+	 */
+	public static ColumnarList read(JsonReader reader, Schema schema) throws IOException {
+		reader.beginObject();
+		String name = reader.hasNext() ? reader.nextName() : null;
+		if("result".equals(name)) {
+			ColumnarList value = read(reader, schema);
+			while(reader.hasNext()) {
+				reader.nextName();
+				reader.skipValue();
+			}
+			reader.endObject();
+			return value;
+		}
+
+		ColumnarList list = null;
+		int totalCount = Integer.MIN_VALUE;
+		for(; name != null; name = reader.hasNext() ? reader.nextName() : null) {
+			if(name.equals("totalCount") && reader.peek() != JsonToken.NULL) {
+				totalCount = (int) readLong(reader);
+			}
+			else if(name.equals("objects") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+				list = new ColumnarList(schema, InitialCapacity);
+				list.readRows(reader);
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if(list == null) {
+			list = new ColumnarList(schema, 0);
+		}
+		list.totalCount = totalCount;
+		return list;
+	}
+
+	/**
+	 * Decodes a list response that was already parsed, e.g. a result of a multi-request.
+	 *
+	 * @param jsonElement list response object, possibly wrapped in a result object
+	 * @param schema selected properties
+	 * @return the decoded page
+	 * @throws IllegalStateException if the JSON is not a list response
+	 * @throws NumberFormatException on invalid number
+	 */
+	public static ColumnarList read(JsonElement jsonElement, Schema schema) {
+		JsonObject jsonObject = jsonElement.getAsJsonObject();
+		if(jsonObject.get("result") != null && jsonObject.get("objectType") == null) {
+			return read(jsonObject.get("result"), schema);
+		}
+
+		ColumnarList list;
+		JsonElement objects = jsonObject.get("objects");
+		if(objects != null && objects.isJsonArray()) {
+			JsonArray rows = objects.getAsJsonArray();
+			list = new ColumnarList(schema, rows.size());
+			for(JsonElement row : rows) {
+				if(!row.isJsonNull()) {
+					list.readRow(row.getAsJsonObject(), list.size);
+				}
+				list.size++;
+			}
+		}
+		else {
+			list = new ColumnarList(schema, 0);
+		}
+
+		JsonElement totalCount = jsonObject.get("totalCount");
+		list.totalCount = totalCount != null && !totalCount.isJsonNull() ? (int) toLong(totalCount.getAsJsonPrimitive()) : Integer.MIN_VALUE;
+		return list;
+	}
+
+	private void readRows(JsonReader reader) throws IOException {
+		reader.beginArray();
+		while(reader.hasNext()) {
+			if(size == capacity) {
+				resize(size * 2);
+			}
+			if(reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			}
+			else {
+				readRow(reader, size);
+			}
+			size++;
+		}
+		reader.endArray();
+		resize(size);
+	}
+
+	private void readRow(JsonReader reader, int row) throws IOException {
+		reader.beginObject();
+		while(reader.hasNext()) {
+			int column = schema.indexOf(reader.nextName());
+			if(column < 0 || reader.peek() == JsonToken.NULL) {
+				reader.skipValue();
+				continue;
+			}
+
+			switch(schema.getType(column)) {
+				case Long:
+					((long[]) columns[column])[row] = readLong(reader);
+					break;
+				case Int:
+					((int[]) columns[column])[row] = readInt(reader);
+					break;
+				case Double:
+					((double[]) columns[column])[row] = reader.nextDouble();
+					break;
+				default:
+					JsonToken token = reader.peek();
+					((String[]) columns[column])[row] = token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY ? GsonParser.readRaw(reader) : GsonParser.readString(reader);
+					break;
+			}
+			present[column].set(row);
+		}
+		reader.endObject();
+	}
+
+	private void readRow(JsonObject jsonObject, int row) {
+		for(Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+			int column = schema.indexOf(entry.getKey());
+			JsonElement value = entry.getValue();
+			if(column < 0 || value.isJsonNull()) {
+				continue;
+			}
+
+			switch(schema.getType(column)) {
+				case Long:
+					((long[]) columns[column])[row] = toLong(value.getAsJsonPrimitive());
+					break;
+				case Int:
+					((int[]) columns[column])[row] = toInt(value.getAsJsonPrimitive());
+					break;
+				case Double:
+					((double[]) columns[column])[row] = value.getAsDouble();
+					break;
+				default:
+					((String[]) columns[column])[row] = value.isJsonPrimitive() ? GsonParser.parseString(value) : GsonParser.toRaw(value);
+					break;
+			}
+			present[column].set(row);
+		}
+	}
+
+	private static long readLong(JsonReader reader) throws IOException {
+		try {
+			return reader.nextLong();
+		}
+		catch(NumberFormatException e) {
+			// e.g. "1.0", converted as JsonPrimitive.getAsLong does
+			return new BigDecimal(reader.nextString()).longValue();
+		}
+	}
+
+	private static int readInt(JsonReader reader) throws IOException {
+		if(reader.peek() == JsonToken.BOOLEAN) {
+			return reader.nextBoolean() ? 1 : 0;
+		}
+		try {
+			return reader.nextInt();
+		}
+		catch(NumberFormatException e) {
+			return new BigDecimal(reader.nextString()).intValue();
+		}
+	}
+
+	private static long toLong(JsonPrimitive value) {
+		try {
+			return value.getAsLong();
+		}
+		catch(NumberFormatException e) {
+			return new BigDecimal(value.getAsString()).longValue();
+		}
+	}
+
+	private static int toInt(JsonPrimitive value) {
+		if(value.isBoolean()) {
+			return value.getAsBoolean() ? 1 : 0;
+		}
+		try {
+			return value.getAsInt();
+		}
+		catch(NumberFormatException e) {
+			return new BigDecimal(value.getAsString()).intValue();
+		}
+	}
+
+	private void resize(int capacity) {
+		this.capacity = capacity;
+		for(int column = 0; column < columns.length; column++) {
+			Object values = columns[column];
+			if(values instanceof long[]) {
+				columns[column] = Arrays.copyOf((long[]) values, capacity);
+			}
+			else if(values instanceof int[]) {
+				columns[column] = Arrays.copyOf((int[]) values, capacity);
+			}
+			else if(values instanceof double[]) {
+				columns[column] = Arrays.copyOf((double[]) values, capacity);
+			}
+			else {
+				columns[column] = Arrays.copyOf((String[]) values, capacity);
+			}
+		}
+	}
+}
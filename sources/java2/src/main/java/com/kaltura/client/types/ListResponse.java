@@ -27,10 +27,12 @@
 // ===================================================================================================
 package com.kaltura.client.types;
 
+import java.io.IOException;
 import java.util.List;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.kaltura.client.Params;
 import com.kaltura.client.utils.GsonParser;
 import com.kaltura.client.utils.request.RequestBuilder;
@@ -76,8 +78,12 @@ public class ListResponse<T> extends ObjectBase {
         Class<ObjectBase> cls = ObjectBase.class;
         JsonPrimitive objectTypeElement = jsonObject.getAsJsonPrimitive("objectType");
         if(objectTypeElement != null) {
-	        String objectType = objectTypeElement.getAsString().replaceAll("ListResponse$", "");
-	        cls = GsonParser.getObjectClass(objectType, cls);
+	        String objectType = objectTypeElement.getAsString();
+	        if(objectType.endsWith("ListResponse")) {
+	        	objectType = objectType.substring(0, objectType.length() - "ListResponse".length());
+	        }
+	        Class<ObjectBase> registered = (Class<ObjectBase>) TypeRegistry.getType(objectType);
+	        cls = registered != null ? registered : GsonParser.getObjectClass(objectType, cls);
         }
         
         // set members values:
@@ -91,5 +97,13 @@ public class ListResponse<T> extends ObjectBase {
         return kparams;
     }
 
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("objectType").value("KalturaListResponse");
+        writeFields(writer);
+        writer.endObject();
+    }
+
 }
 
@@ -27,11 +27,19 @@
 // ===================================================================================================
 package com.kaltura.client.types;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.kaltura.client.Params;
+import com.kaltura.client.ParamsValueDefaults;
+import com.kaltura.client.enums.EnumAsInt;
+import com.kaltura.client.enums.EnumAsString;
 import com.kaltura.client.utils.GsonParser;
 import com.kaltura.client.utils.response.ResponseType;
 
@@ -41,19 +49,83 @@ public class ObjectBase implements Serializable, ResponseType {
 	public interface Tokenizer {
 	}
 
-	private Params params = null;
+	/**
+	 * Base of the generated tokenizer implementations, see {@link TypeRegistry#newTokenizer(Class, String)}.
+	 * Tokens are built as plain strings, no proxy or reflection is involved.
+	 */
+	public static class TokenizerImpl implements Tokenizer {
+		private final String prefix;
+
+		public TokenizerImpl(String prefix) {
+			this.prefix = prefix;
+		}
+
+		/**
+		 * @param property property name
+		 * @return path of the property, e.g. "1:result:mediaType"
+		 */
+		protected String path(String property) {
+			return prefix + ":" + property;
+		}
+
+		/**
+		 * @param property property name
+		 * @return token of the property, e.g. "{1:result:mediaType}"
+		 */
+		protected String token(String property) {
+			return "{" + prefix + ":" + property + "}";
+		}
+	}
+
+	private Params tokens = null;
 
     @SuppressWarnings("rawtypes")
 	protected Map<String, ListResponse> relatedObjects;
 
+	/**
+	 * Compact JSON of the received related objects, parsed on first access and null afterwards.
+	 * Most responses carry related objects that are never read, keeping them as text is both
+	 * cheaper to build and smaller to hold than the parsed lists.
+	 */
+	private volatile String relatedObjectsJson = null;
+
+	/**
+	 * Failure of parsing the received related objects, reported by every call to {@link #getRelatedObjects()}.
+	 */
+	private volatile APIException relatedObjectsError = null;
+
+	/**
+	 * @return the related objects, parsed on the first call
+	 * @throws IllegalStateException if the received related objects are invalid, caused by the parsing {@link APIException}
+	 */
     @SuppressWarnings("rawtypes")
 	public Map<String, ListResponse> getRelatedObjects() {
+    	if(relatedObjectsJson != null || relatedObjectsError != null) {
+    		parseRelatedObjects();
+    	}
         return relatedObjects;
     }
 
     @SuppressWarnings("rawtypes")
-	public void setRelatedObjects(Map<String, ListResponse> relatedObjects) {
+	public synchronized void setRelatedObjects(Map<String, ListResponse> relatedObjects) {
         this.relatedObjects = relatedObjects;
+        this.relatedObjectsJson = null;
+        this.relatedObjectsError = null;
+    }
+
+    private synchronized void parseRelatedObjects() {
+    	String json = relatedObjectsJson;
+    	if(json != null) {
+	    	try {
+				relatedObjects = GsonParser.parseMap(json, ListResponse.class);
+			} catch (APIException e) {
+				relatedObjectsError = e;
+			}
+	    	relatedObjectsJson = null;
+    	}
+    	if(relatedObjectsError != null) {
+    		throw new IllegalStateException("Failed to parse related objects", relatedObjectsError);
+    	}
     }
 
     public ObjectBase() {
@@ -63,20 +135,202 @@ public class ObjectBase implements Serializable, ResponseType {
         if(jsonObject == null) return;
 
         // set members values:
-        relatedObjects = GsonParser.parseMap(jsonObject.getAsJsonObject("relatedObjects"), ListResponse.class);
+        JsonObject relatedObjects = jsonObject.getAsJsonObject("relatedObjects");
+        if(relatedObjects != null) {
+        	relatedObjectsJson = GsonParser.toRaw(relatedObjects);
+        }
     }
+
+	/**
+	 * Reads a single property of a streamed response, sub-classes read their own properties
+	 * and call super for the rest.
+	 * 
+	 * @param name property name
+	 * @param reader JSON reader, positioned at the property value
+	 * @return false if the property is unknown, the value is left unread in that case
+	 * @throws IOException on invalid JSON
+	 * @throws APIException on invalid nested object
+	 */
+	public boolean readField(String name, JsonReader reader) throws IOException, APIException {
+		if(name.equals("relatedObjects")) {
+			if(reader.peek() == JsonToken.BEGIN_OBJECT) {
+				this.relatedObjectsJson = GsonParser.readRaw(reader);
+			}
+			else {
+				this.relatedObjects = GsonParser.readMap(reader, ListResponse.class);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Copies the properties that were already read into an instance of a super-class,
+	 * used when a streamed objectType turns out to be more specific than the expected class.
+	 * 
+	 * @param source object of the expected class
+	 */
+	public void copyFields(ObjectBase source) {
+		this.relatedObjectsJson = source.relatedObjectsJson;
+		this.relatedObjectsError = source.relatedObjectsError;
+		this.relatedObjects = source.relatedObjects;
+	}
     
 	public void setToken(String key, String token) {
-		if(params == null) {
-			params = new Params();
+		if(tokens == null) {
+			tokens = new Params();
 		}
-		params.add(key, token);
+		tokens.add(key, token);
     }
     
+	/**
+	 * Builds a new Params on every call, so the same object can be used in several requests.
+	 */
 	public Params toParams() {
-		if(params == null) {
-			params = new Params();
+		Params kparams = new Params();
+		if(tokens != null) {
+			kparams.putAll(tokens);
+		}
+		return kparams;
+	}
+
+	/**
+	 * Serializes the object straight into the writer, producing the same JSON as toParams().
+	 * 
+	 * @param writer JSON writer of the request body
+	 * @throws IOException on write failure
+	 */
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writeFields(writer);
+		writer.endObject();
+	}
+
+	/**
+	 * Writes the object properties, sub-classes write their own properties after calling super.
+	 * 
+	 * @param writer JSON writer of the request body
+	 * @throws IOException on write failure
+	 */
+	protected void writeFields(JsonWriter writer) throws IOException {
+		if(tokens != null) {
+			for(Map.Entry<String, Object> token : tokens.entrySet()) {
+				writer.name(token.getKey()).value((String) token.getValue());
+			}
+		}
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, Integer value) throws IOException {
+		if(value == null || value == ParamsValueDefaults.KALTURA_UNDEF_INT) {
+			return;
+		}
+		if(value == ParamsValueDefaults.KALTURA_NULL_INT) {
+			writeNull(writer, key);
+			return;
+		}
+		writer.name(key).value(value);
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, Long value) throws IOException {
+		if(value == null || value == ParamsValueDefaults.KALTURA_UNDEF_LONG) {
+			return;
+		}
+		if(value == ParamsValueDefaults.KALTURA_NULL_LONG) {
+			writeNull(writer, key);
+			return;
+		}
+		writer.name(key).value(value);
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, Double value) throws IOException {
+		if(value == null || value == ParamsValueDefaults.KALTURA_UNDEF_DOUBLE) {
+			return;
+		}
+		if(value == ParamsValueDefaults.KALTURA_NULL_DOUBLE) {
+			writeNull(writer, key);
+			return;
+		}
+		writer.name(key).value(value);
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, Boolean value) throws IOException {
+		if(value == null) {
+			return;
+		}
+		writer.name(key).value(value.booleanValue());
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, String value) throws IOException {
+		if(value == null) {
+			return;
+		}
+		if(value.equals(ParamsValueDefaults.KALTURA_NULL_STRING)) {
+			writeNull(writer, key);
+			return;
+		}
+		writer.name(key).value(value);
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, EnumAsString value) throws IOException {
+		if(value == null) {
+			return;
+		}
+		writeParam(writer, key, value.getValue());
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, EnumAsInt value) throws IOException {
+		if(value == null) {
+			return;
+		}
+		writeParam(writer, key, value.getValue());
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, ObjectBase value) throws IOException {
+		if(value == null) {
+			return;
+		}
+		writer.name(key);
+		value.writeTo(writer);
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, List<? extends ObjectBase> array) throws IOException {
+		if(array == null) {
+			return;
+		}
+		writer.name(key);
+		if(array.isEmpty()) {
+			writeEmpty(writer);
+			return;
+		}
+		writer.beginArray();
+		for(ObjectBase item : array) {
+			item.writeTo(writer);
+		}
+		writer.endArray();
+	}
+
+	protected static void writeParam(JsonWriter writer, String key, Map<String, ? extends ObjectBase> map) throws IOException {
+		if(map == null) {
+			return;
+		}
+		writer.name(key);
+		if(map.isEmpty()) {
+			writeEmpty(writer);
+			return;
+		}
+		writer.beginObject();
+		for(Map.Entry<String, ? extends ObjectBase> item : map.entrySet()) {
+			writer.name(item.getKey());
+			item.getValue().writeTo(writer);
 		}
-		return params;
+		writer.endObject();
+	}
+
+	private static void writeNull(JsonWriter writer, String key) throws IOException {
+		writer.name(key + "__null").value("");
+	}
+
+	private static void writeEmpty(JsonWriter writer) throws IOException {
+		writer.beginObject().name("-").value("").endObject();
 	}
 }
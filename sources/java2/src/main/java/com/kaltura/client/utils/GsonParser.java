@@ -4,19 +4,36 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.types.APIException.FailureStep;
+import com.kaltura.client.types.ColumnarList;
 import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.types.ObjectBase;
+import com.kaltura.client.types.TypeRegistry;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Created by tehilarozin on 24/07/2016.
@@ -25,28 +42,170 @@ public class GsonParser {
 
 	private static final String ResultKey = "result";
 	private static final String ObjectTypeKey = "objectType";
+	private static final String ObjectTypeField = "\"" + ObjectTypeKey + "\"";
 
     private static Gson gson = new Gson();
 
+    /**
+     * Resolved object types, keyed by the objectType string as received from the server.
+     * Types that have no matching class are kept as {@link #UnknownType} so that unknown
+     * plugin types don't cost a failed class lookup on every object.
+     */
+    private static final ConcurrentMap<String, Class<?>> objectClasses = new ConcurrentHashMap<String, Class<?>>();
+
+    /**
+     * Unknown object types come from the server, the number of negative entries is capped.
+     */
+    private static final int MaxUnknownTypes = 1024;
+    private static final AtomicInteger unknownTypes = new AtomicInteger();
+    private static final Class<?> UnknownType = Void.TYPE;
+
+    /**
+     * Unknown object types received once the negative entries are full, by hash of the type.
+     * Types that map to the same slot replace each other, so its size bounds the memory too.
+     */
+    private static final int UnknownTypesOverflowSize = 256;
+    private static final AtomicReferenceArray<String> unknownTypesOverflow = new AtomicReferenceArray<String>(UnknownTypesOverflowSize);
+
+    /**
+     * JsonObject constructors of the types {@link TypeRegistry} doesn't create directly. They are
+     * called reflectively rather than through MethodHandles, since this parser also runs in the
+     * Android client, which supports API levels older than 26, the first with java.lang.invoke.
+     */
+    private static final ConcurrentMap<Class<?>, Constructor<?>> jsonConstructors = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    /**
+     * Shares equal string values between parsed objects, null when disabled.
+     */
+    private static volatile StringPool stringPool = null;
+
+    /**
+     * Enables deduplication of parsed string properties. Large lists repeat the same tags,
+     * user ids and status strings many times, with deduplication all the parsed objects refer
+     * to a single instance of each, which reduces the memory held by cached results.
+     * The table is shared by all parsing threads and bounded by its size, equal strings that
+     * map to the same slot replace each other so some duplicates are still kept.
+     * 
+     * @param size number of pooled strings, e.g. 4096, zero or negative to disable
+     */
+    public static void setStringDeduplication(int size) {
+    	stringPool = size > 0 ? new StringPool(size) : null;
+    }
+
+    private static String dedup(String value) {
+    	StringPool pool = stringPool;
+    	return pool != null ? pool.intern(value) : value;
+    }
+
+    /**
+     * Number of characters of an invalid response quoted in exception messages.
+     */
+    public static final int SnippetLength = 256;
+
+    /**
+     * @param result response body, possibly a large error page returned by a proxy
+     * @return the body, or its start followed by its total length when it is longer than {@link #SnippetLength}
+     */
+    public static String snippet(String result) {
+    	return truncate(result, SnippetLength);
+    }
+
+    /**
+     * @param value text to shorten
+     * @param maxLength maximal number of characters kept, negative keeps all
+     * @return the value, or its first characters followed by its total length
+     */
+    public static String truncate(String value, int maxLength) {
+    	if(value == null || maxLength < 0 || value.length() <= maxLength) {
+    		return value;
+    	}
+    	return value.substring(0, maxLength) + "... (" + value.length() + " characters)";
+    }
+
     @SuppressWarnings("unchecked")
 	public static <T> Class<T> getObjectClass(String objectType, Class<T> defaultClass) {
-        String className = "com.kaltura.client.types." + objectType.replaceAll("^Kaltura", "");
+    	Class<?> clz = objectClasses.get(objectType);
+    	if(clz == null) {
+    		clz = resolveObjectClass(objectType);
+    	}
+		return clz == UnknownType ? defaultClass : (Class<T>) clz;
+    }
 
+    private static Class<?> resolveObjectClass(String objectType) {
+    	Class<?> clz = TypeRegistry.getType(objectType);
+    	if(clz != null) {
+    		return clz;
+    	}
+    	
+    	int overflowSlot = objectType.hashCode() & (UnknownTypesOverflowSize - 1);
+    	if(objectType.equals(unknownTypesOverflow.get(overflowSlot))) {
+    		return UnknownType;
+    	}
+    	
+    	String name = objectType.startsWith("Kaltura") ? objectType.substring(7) : objectType;
 		try {
-			return (Class<T>) Class.forName(className);
+			clz = Class.forName("com.kaltura.client.types." + name);
 		} catch (ClassNotFoundException e) {
-			return defaultClass;
+			if(!claimUnknownType()) {
+				unknownTypesOverflow.set(overflowSlot, objectType);
+				return UnknownType;
+			}
+			clz = UnknownType;
+		}
+		Class<?> existing = objectClasses.putIfAbsent(objectType, clz);
+		if(existing != null && clz == UnknownType) {
+			// another thread cached the same type, release the claimed entry
+			unknownTypes.decrementAndGet();
 		}
+		return existing != null ? existing : clz;
+    }
+
+    /**
+     * @return whether a negative entry was claimed, false once they are full
+     */
+    private static boolean claimUnknownType() {
+    	while(true) {
+    		int count = unknownTypes.get();
+    		if(count >= MaxUnknownTypes) {
+    			return false;
+    		}
+    		if(unknownTypes.compareAndSet(count, count + 1)) {
+    			return true;
+    		}
+    	}
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Constructor<T> getJsonConstructor(Class<T> clz) throws NoSuchMethodException {
+    	Constructor<?> constructor = jsonConstructors.get(clz);
+    	if(constructor == null) {
+    		constructor = clz.getConstructor(JsonObject.class);
+    		jsonConstructors.putIfAbsent(clz, constructor);
+    	}
+    	return (Constructor<T>) constructor;
     }
 
     public static <T> T parseObject(String result, Class<T> clz) throws APIException {
+        if(isStreamable(result)) {
+            JsonReader reader = newReader(result);
+            try {
+            	T value = readResponse(reader, clz);
+            	if(reader.peek() == JsonToken.END_DOCUMENT) {
+            		return value;
+            	}
+            }
+            catch(IOException | IllegalStateException | NumberFormatException e) {
+            }
+            throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
+        }
+        
         JsonParser jsonParser = new JsonParser();
         JsonElement jsonElement;
         try{
         	jsonElement = jsonParser.parse(result);
         }
         catch(JsonSyntaxException | IllegalStateException e) {
-        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + result);
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
         }
         
         if(jsonElement.isJsonObject()) {
@@ -97,6 +256,7 @@ public class GsonParser {
     	return parseObject(jsonElement.getAsJsonObject(), clz);
     }
 
+    @SuppressWarnings("unchecked")
     public static <T> T parseObject(JsonObject jsonObject, Class<T> clz) throws APIException {
     	if(jsonObject == null)
     	{
@@ -112,6 +272,15 @@ public class GsonParser {
 	        if(objectType.equals("KalturaAPIException")) {
 	        	throw parseException(jsonObject);
 	        }
+	        
+	        try {
+	        	ObjectBase object = TypeRegistry.create(objectType, jsonObject);
+	        	if(object != null) {
+	        		return (T) object;
+	        	}
+	        } catch (RuntimeException e) {
+	        	throw new APIException(FailureStep.OnResponse, e);
+	        }
 	        clz = getObjectClass(objectType, clz);
         }
         if(clz == Void.class) {
@@ -119,8 +288,7 @@ public class GsonParser {
         }
         
         try {
-        	Constructor<T> constructor = clz.getConstructor(JsonObject.class);
-	        return constructor.newInstance(jsonObject);
+	        return getJsonConstructor(clz).newInstance(jsonObject);
 
         } catch (NoSuchMethodException | SecurityException | InstantiationException |
 				IllegalAccessException | IllegalArgumentException | InvocationTargetException |
@@ -130,13 +298,66 @@ public class GsonParser {
     }
 
     public static List<?> parseArray(String result, Class<?>[] types) throws APIException {
+    	return parseArray(result, types, -1);
+    }
+
+    /**
+     * @param result multi-request response
+     * @param types expected class of each result
+     * @param parallelThreshold minimal number of results to parse them in parallel, negative to always parse sequentially
+     * @return the results, failed items hold their APIException
+     * @throws APIException when the whole response failed
+     */
+    public static List<?> parseArray(String result, Class<?>[] types, int parallelThreshold) throws APIException {
+    	return parseArray(result, typesParser(types), parallelThreshold);
+    }
+
+    /**
+     * Parses the results of a multi-request, each by the parser given for its position.
+     */
+    public interface ItemParser {
+        /**
+         * @param index position of the result in the response
+         * @param item the result's JSON
+         * @return the parsed result
+         * @throws APIException if the call failed or its result is invalid
+         */
+        Object parse(int index, JsonElement item) throws APIException;
+    }
+
+    private static ItemParser typesParser(final Class<?>[] types) {
+    	return new ItemParser() {
+			@Override
+			public Object parse(int index, JsonElement item) throws APIException {
+				return parseObject(item, types[index]);
+			}
+		};
+    }
+
+    private static ItemParser typeParser(final Class<?> type) {
+    	return new ItemParser() {
+			@Override
+			public Object parse(int index, JsonElement item) throws APIException {
+				return parseObject(item, type);
+			}
+		};
+    }
+
+    /**
+     * @param result multi-request response
+     * @param parser parser of each result
+     * @param parallelThreshold minimal number of results to parse them in parallel, negative to always parse sequentially
+     * @return the results, failed items hold their APIException
+     * @throws APIException when the whole response failed
+     */
+    public static List<?> parseArray(String result, ItemParser parser, int parallelThreshold) throws APIException {
         JsonParser jsonParser = new JsonParser();
         JsonElement jsonElement;
         try{
         	jsonElement = jsonParser.parse(result);
         }
         catch(JsonSyntaxException | IllegalStateException e) {
-        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + result);
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
         }
 
         if(jsonElement.isJsonObject()) {
@@ -157,23 +378,41 @@ public class GsonParser {
 	        }
         }
         else if(jsonElement.isJsonArray()) {
-        	return parseArray(jsonElement.getAsJsonArray(), types);
+        	return parseArray(jsonElement.getAsJsonArray(), parser, parallelThreshold);
         }
 
-       	throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected array: " + result);
+       	throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected array: " + snippet(result));
     }
 
     public static List<?> parseArray(JsonArray jsonArray, Class<?>[] types) throws APIException {
+    	return parseArray(jsonArray, types, -1);
+    }
+
+    public static List<?> parseArray(JsonArray jsonArray, Class<?>[] types, int parallelThreshold) throws APIException {
+    	return parseArray(jsonArray, typesParser(types), parallelThreshold);
+    }
+
+    public static List<?> parseArray(JsonArray jsonArray, ItemParser parser, int parallelThreshold) throws APIException {
     	if(jsonArray == null)
     	{
     		return null;
     	}
     	
+    	if(isParallel(jsonArray, parallelThreshold)) {
+    		APIException[] errors = new APIException[jsonArray.size()];
+    		Object[] results = parseParallel(jsonArray, parser, errors);
+    		List<Object> array = new ArrayList<Object>(results.length);
+    		for(int i = 0; i < results.length; i++) {
+    			array.add(errors[i] != null ? errors[i] : results[i]);
+    		}
+    		return array;
+    	}
+    	
     	List<Object> array = new ArrayList<Object>();
     	int index = 0;
     	for(JsonElement jsonElement : jsonArray) {
     		try{
-    			array.add(parseObject(jsonElement, types[index++]));
+    			array.add(parser.parse(index++, jsonElement));
     		}
     		catch(APIException e) {
     			array.add(e);
@@ -183,14 +422,89 @@ public class GsonParser {
     	return array;
     }
 
+    /**
+     * Receives the results of a streamed multi-request response, see {@link GsonParser#parseArray(Reader, ItemParser, ItemHandler)}.
+     */
+    public interface ItemHandler {
+        /**
+         * @param index position of the result in the response
+         * @param item the parsed result, or its APIException if the call failed
+         */
+        void onItem(int index, Object item);
+    }
+
+    /**
+     * Reads a multi-request response as it is received, each result is parsed and handed to the
+     * handler as soon as its JSON was read, before the rest of the response arrived.
+     * Error responses and results wrapped in a result object are read whole and not handed over.
+     *
+     * @param reader response body
+     * @param parser parser of each result
+     * @param handler called for each result, in order, on the reading thread
+     * @return the results, failed items hold their APIException
+     * @throws APIException when the whole response failed or could not be read, results already handed over stay valid
+     */
+    public static List<?> parseArray(Reader reader, ItemParser parser, ItemHandler handler) throws APIException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+        	if(jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+        		return parseArray(elementParser.parse(jsonReader).toString(), parser, -1);
+        	}
+
+        	List<Object> array = new ArrayList<Object>();
+        	jsonReader.beginArray();
+        	for(int index = 0; jsonReader.hasNext(); index++) {
+        		Object item;
+        		try {
+        			item = parser.parse(index, elementParser.parse(jsonReader));
+        		}
+        		catch(APIException e) {
+        			item = e;
+        		}
+        		array.add(item);
+        		handler.onItem(index, item);
+        	}
+        	jsonReader.endArray();
+        	return array;
+        }
+        catch(IOException | JsonParseException | IllegalStateException e) {
+        	throw new APIException(FailureStep.OnResponse, "Failed to read response: " + e.getMessage());
+        }
+    }
+
     public static <T> List<T> parseArray(String result, Class<T> clz) throws APIException {
+    	return parseArray(result, clz, -1);
+    }
+
+    /**
+     * @param result array response
+     * @param clz expected class of the items
+     * @param parallelThreshold minimal number of items to parse them in parallel, negative to always parse sequentially
+     * @return the items
+     * @throws APIException on error response or invalid item
+     */
+    public static <T> List<T> parseArray(String result, Class<T> clz, int parallelThreshold) throws APIException {
+        if(!mayParseParallel(result, parallelThreshold) && isStreamable(result)) {
+            JsonReader reader = newReader(result);
+            try {
+            	List<T> value = readArrayResponse(reader, clz);
+            	if(value != null && reader.peek() == JsonToken.END_DOCUMENT) {
+            		return value;
+            	}
+            }
+            catch(IOException | IllegalStateException | NumberFormatException e) {
+            }
+            throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected array of " + clz.getName() + ": " + snippet(result));
+        }
+        
         JsonParser jsonParser = new JsonParser();
         JsonElement jsonElement;
         try{
         	jsonElement = jsonParser.parse(result);
         }
         catch(JsonSyntaxException | IllegalStateException e) {
-        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + result);
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
         }
 
         if(jsonElement.isJsonObject()) {
@@ -208,18 +522,34 @@ public class GsonParser {
 	        }
         }
         else if(jsonElement.isJsonArray()) {
-        	return parseArray(jsonElement.getAsJsonArray(), clz);
+        	return parseArray(jsonElement.getAsJsonArray(), clz, parallelThreshold);
         }
 
-       	throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected array of " + clz.getName() + ": " + result);
+       	throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected array of " + clz.getName() + ": " + snippet(result));
     }
 
     public static <T> List<T> parseArray(JsonArray jsonArray, Class<T> clz) throws APIException {
+    	return parseArray(jsonArray, clz, -1);
+    }
+
+    @SuppressWarnings("unchecked")
+	public static <T> List<T> parseArray(JsonArray jsonArray, Class<T> clz, int parallelThreshold) throws APIException {
     	if(jsonArray == null)
     	{
     		return null;
     	}
     	
+    	if(isParallel(jsonArray, parallelThreshold)) {
+    		APIException[] errors = new APIException[jsonArray.size()];
+    		Object[] results = parseParallel(jsonArray, typeParser(clz), errors);
+    		for(APIException error : errors) {
+    			if(error != null) {
+    				throw error;
+    			}
+    		}
+    		return new ArrayList<T>((List<T>) Arrays.asList(results));
+    	}
+    	
     	List<T> array = new ArrayList<T>();
     	for(JsonElement jsonElement : jsonArray) {
 	        array.add(parseObject(jsonElement, clz));
@@ -229,13 +559,37 @@ public class GsonParser {
     }
 
     public static <T> ListResponse<T> parseListResponse(String result, Class<T> clz) throws APIException {
+    	return parseListResponse(result, clz, -1);
+    }
+
+    /**
+     * @param result list response
+     * @param clz expected class of the listed objects
+     * @param parallelThreshold minimal number of objects to parse them in parallel, negative to always parse sequentially
+     * @return the list response
+     * @throws APIException on error response or invalid object
+     */
+    public static <T> ListResponse<T> parseListResponse(String result, Class<T> clz, int parallelThreshold) throws APIException {
+        if(!mayParseParallel(result, parallelThreshold) && isStreamable(result)) {
+            JsonReader reader = newReader(result);
+            try {
+            	ListResponse<T> value = readListResponse(reader, clz);
+            	if(reader.peek() == JsonToken.END_DOCUMENT) {
+            		return value;
+            	}
+            }
+            catch(IOException | IllegalStateException | NumberFormatException e) {
+            }
+            throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
+        }
+        
         JsonParser jsonParser = new JsonParser();
         JsonObject jsonObject;
         try{
         	jsonObject = jsonParser.parse(result).getAsJsonObject();
         }
         catch(JsonSyntaxException | IllegalStateException e) {
-        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + result);
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
         }
 
     	if(jsonObject.get(ResultKey) != null && jsonObject.get(ObjectTypeKey) == null) {
@@ -245,9 +599,28 @@ public class GsonParser {
     		jsonObject = jsonObject.getAsJsonObject("error");
     	}
         
-        String objectType = jsonObject.getAsJsonPrimitive(ObjectTypeKey).getAsString();
-        if(objectType.equals("KalturaAPIException")) {
-        	throw parseException(jsonObject);
+        return parseListResponse(jsonObject, clz, parallelThreshold);
+    }
+
+    /**
+     * @param jsonElement the list response's JSON, e.g. a result of a multi-request
+     * @param clz expected class of the listed objects
+     * @param parallelThreshold minimal number of objects to parse them in parallel, negative to always parse sequentially
+     * @return the list response
+     * @throws APIException on error object or invalid object
+     */
+    public static <T> ListResponse<T> parseListResponse(JsonElement jsonElement, Class<T> clz, int parallelThreshold) throws APIException {
+        if(jsonElement.isJsonNull()) {
+        	return null;
+        }
+        if(!jsonElement.isJsonObject()) {
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response type, expected list response: " + snippet(jsonElement.toString()));
+        }
+
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+        APIException exception = findException(jsonObject);
+        if(exception != null) {
+        	throw exception;
         }
         
         ListResponse<T> listResponse = new ListResponse<T>();
@@ -255,11 +628,94 @@ public class GsonParser {
         if (null != totalCount) {
             listResponse.setTotalCount(totalCount.getAsInt());
         }
-        listResponse.setObjects(parseArray(jsonObject.getAsJsonArray("objects"), clz));
+        listResponse.setObjects(parseArray(jsonObject.getAsJsonArray("objects"), clz, parallelThreshold));
 
         return listResponse;
     }
 
+    /**
+     * Decodes the selected properties of the listed objects into columns, see {@link ColumnarList}.
+     * 
+     * @param result list response
+     * @param schema selected properties
+     * @return the decoded page
+     * @throws APIException on error response or invalid JSON
+     */
+    public static ColumnarList parseColumns(String result, ColumnarList.Schema schema) throws APIException {
+        if(!isStreamable(result)) {
+        	APIException exception = findException(result);
+        	if(exception != null) {
+        		throw exception;
+        	}
+        }
+
+        JsonReader reader = newReader(result);
+        try {
+        	ColumnarList value = ColumnarList.read(reader, schema);
+        	if(reader.peek() == JsonToken.END_DOCUMENT) {
+        		return value;
+        	}
+        }
+        catch(IOException | IllegalStateException | NumberFormatException e) {
+        }
+        throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
+    }
+
+    /**
+     * @param jsonElement the list response's JSON, e.g. a result of a multi-request
+     * @param schema selected properties
+     * @return the decoded page
+     * @throws APIException on error object or invalid JSON
+     */
+    public static ColumnarList parseColumns(JsonElement jsonElement, ColumnarList.Schema schema) throws APIException {
+        if(jsonElement.isJsonNull()) {
+        	return null;
+        }
+        if(jsonElement.isJsonObject()) {
+        	APIException exception = findException(jsonElement.getAsJsonObject());
+        	if(exception != null) {
+        		throw exception;
+        	}
+        }
+
+        try {
+        	return ColumnarList.read(jsonElement, schema);
+        }
+        catch(IllegalStateException | NumberFormatException e) {
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(jsonElement.toString()));
+        }
+    }
+
+    /**
+     * @return the error of an error response, possibly wrapped in result or error, or null
+     */
+    private static APIException findException(String result) throws APIException {
+        JsonElement jsonElement;
+        try{
+        	jsonElement = new JsonParser().parse(result);
+        }
+        catch(JsonSyntaxException | IllegalStateException e) {
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
+        }
+        if(!jsonElement.isJsonObject()) {
+        	return null;
+        }
+        return findException(jsonElement.getAsJsonObject());
+    }
+
+    /**
+     * @return the error of an error object, possibly wrapped in result or error, or null
+     */
+    private static APIException findException(JsonObject jsonObject) {
+    	if(jsonObject.get(ResultKey) != null && jsonObject.get(ObjectTypeKey) == null && jsonObject.get(ResultKey).isJsonObject()) {
+    		jsonObject = jsonObject.getAsJsonObject(ResultKey);
+    	}
+    	if(jsonObject.get("error") != null && jsonObject.get(ObjectTypeKey) == null && jsonObject.get("error").isJsonObject()) {
+    		jsonObject = jsonObject.getAsJsonObject("error");
+    	}
+    	return jsonObject.get(ObjectTypeKey) != null ? parseException(jsonObject) : null;
+    }
+
     public static APIException parseException(String result) {
         JsonParser jsonParser = new JsonParser();
         JsonElement jsonElement;
@@ -267,7 +723,7 @@ public class GsonParser {
         	jsonElement = jsonParser.parse(result);
         }
         catch(JsonSyntaxException | IllegalStateException e) {
-        	return new APIException(FailureStep.OnResponse, "Invalid JSON response: " + result);
+        	return new APIException(FailureStep.OnResponse, "Invalid JSON response: " + snippet(result));
         }
 
         if(jsonElement.isJsonObject()) {
@@ -286,13 +742,34 @@ public class GsonParser {
         return null;
     }
 
+    /**
+     * @param jsonElement a result's JSON, e.g. of a multi-request
+     * @return strings as is, other values as JSON, null for null
+     * @throws APIException if the result is an error object
+     */
+    public static String parseText(JsonElement jsonElement) throws APIException {
+    	if(jsonElement.isJsonNull()) {
+    		return null;
+    	}
+    	if(jsonElement.isJsonPrimitive()) {
+    		return jsonElement.getAsString();
+    	}
+    	if(jsonElement.isJsonObject()) {
+    		APIException exception = findException(jsonElement.getAsJsonObject());
+    		if(exception != null) {
+    			throw exception;
+    		}
+    	}
+    	return jsonElement.toString();
+    }
+
     public static String parseString(JsonElement jsonElement) {
     	if(jsonElement == null)
     	{
     		return null;
     	}
     	
-    	return jsonElement.getAsString();
+    	return dedup(jsonElement.getAsString());
     }
 
     public static Integer parseInt(JsonElement jsonElement) {
@@ -331,26 +808,571 @@ public class GsonParser {
     	return jsonElement.getAsLong();
     }
 
+    /**
+     * @param result JSON map, e.g. as returned by {@link #readRaw(JsonReader)}
+     * @param clz expected class of the values
+     * @return the map
+     * @throws APIException on invalid JSON or value
+     */
+    public static <T> Map<String, T> parseMap(String result, Class<T> clz) throws APIException {
+        if(isStreamable(result)) {
+            JsonReader reader = newReader(result);
+            try {
+            	Map<String, T> value = readMap(reader, clz);
+            	if(reader.peek() == JsonToken.END_DOCUMENT) {
+            		return value;
+            	}
+            }
+            catch(IOException | IllegalStateException | NumberFormatException e) {
+            }
+            throw new APIException(FailureStep.OnResponse, "Invalid JSON map: " + snippet(result));
+        }
+        
+        JsonObject jsonObject;
+        try{
+        	jsonObject = new JsonParser().parse(result).getAsJsonObject();
+        }
+        catch(JsonSyntaxException | IllegalStateException e) {
+        	throw new APIException(FailureStep.OnResponse, "Invalid JSON map: " + snippet(result));
+        }
+        return parseMap(jsonObject, clz);
+    }
+
     public static <T> Map<String, T> parseMap(JsonObject jsonMap, Class<T> clz) throws APIException {
     	if(jsonMap == null)
     	{
     		return null;
     	}
     	
-    	JsonObject jsonObject;
-    	String objectType;
     	Map<String, T> map = new HashMap<String, T>();
     	
 		for (Map.Entry<String, JsonElement> entry : jsonMap.entrySet()) {
-    		jsonObject = entry.getValue().getAsJsonObject();
-	        objectType = jsonObject.getAsJsonPrimitive(ObjectTypeKey).getAsString();
-	        if(objectType.equals("KalturaAPIException")) {
-	        	throw parseException(jsonObject);
-	        }
-	        clz = getObjectClass(objectType, clz);
-			map.put(entry.getKey(), parseObject(jsonObject, clz));
+			map.put(entry.getKey(), parseObject(entry.getValue().getAsJsonObject(), clz));
+		}
+    	
+    	return map;
+    }
+
+    /*
+     * Parallel parsing
+     */
+
+    /**
+     * Shared pool, created on first parallel parse.
+     */
+    private static class ParsePool {
+    	private static final ForkJoinPool pool = new ForkJoinPool();
+    }
+
+    private static boolean isParallel(JsonArray jsonArray, int parallelThreshold) {
+    	return parallelThreshold >= 0 && jsonArray.size() > 1 && jsonArray.size() >= parallelThreshold;
+    }
+
+    /**
+     * Parallel parsing needs the tree, responses that can't hold enough objects for it are streamed.
+     * Every listed object has an objectType, so fewer objectType keys than the threshold mean fewer
+     * objects, nested objects only make the count higher.
+     */
+    private static boolean mayParseParallel(String result, int parallelThreshold) {
+    	if(parallelThreshold < 0) {
+    		return false;
+    	}
+    	int count = 0;
+    	int minCount = Math.max(2, parallelThreshold);
+    	for(int index = result.indexOf(ObjectTypeField); index >= 0; index = result.indexOf(ObjectTypeField, index + ObjectTypeField.length())) {
+    		if(++count >= minCount) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    private static Object[] parseParallel(JsonArray jsonArray, ItemParser parser, APIException[] errors) {
+    	ForkJoinPool pool = ParsePool.pool;
+    	Object[] results = new Object[jsonArray.size()];
+    	int leafSize = Math.max(1, results.length / (pool.getParallelism() * 4));
+    	pool.invoke(new ParseTask(jsonArray, parser, results, errors, 0, results.length, leafSize));
+    	return results;
+    }
+
+    /**
+     * Parses a range of array items, splitting it between the pool workers.
+     * Each item is parsed into its own slot, so the order is kept and each failure stays with its item.
+     */
+    @SuppressWarnings("serial")
+	private static class ParseTask extends RecursiveAction {
+    	private final JsonArray jsonArray;
+    	private final ItemParser parser;
+    	private final Object[] results;
+    	private final APIException[] errors;
+    	private final int from;
+    	private final int to;
+    	private final int leafSize;
+
+    	ParseTask(JsonArray jsonArray, ItemParser parser, Object[] results, APIException[] errors, int from, int to, int leafSize) {
+    		this.jsonArray = jsonArray;
+    		this.parser = parser;
+    		this.results = results;
+    		this.errors = errors;
+    		this.from = from;
+    		this.to = to;
+    		this.leafSize = leafSize;
+    	}
+
+		@Override
+		protected void compute() {
+			if(to - from <= leafSize) {
+				for(int i = from; i < to; i++) {
+					try {
+						results[i] = parser.parse(i, jsonArray.get(i));
+					}
+					catch(APIException e) {
+						errors[i] = e;
+					}
+				}
+				return;
+			}
+			
+			int middle = (from + to) >>> 1;
+			invokeAll(new ParseTask(jsonArray, parser, results, errors, from, middle, leafSize),
+					new ParseTask(jsonArray, parser, results, errors, middle, to, leafSize));
 		}
+    }
+
+    /*
+     * Streaming path
+     * 
+     * Responses are read straight from the JSON text into the generated types, without building
+     * a JsonObject tree first. While an object's objectType is still unknown it is decoded into
+     * the expected class and only properties the expected class doesn't know are buffered; if the
+     * objectType turns out to be a sub-class, it is built from the buffer and the properties
+     * already decoded are copied over.
+     * Anything the streaming path doesn't handle is buffered into a tree and parsed as above.
+     */
+
+    private static final JsonParser elementParser = new JsonParser();
+
+    /**
+     * Errors are rare and small, they keep the tree path and its exact handling.
+     */
+    private static boolean isStreamable(String result) {
+    	return result.indexOf("KalturaAPIException") < 0 && result.indexOf("\"error\"") < 0;
+    }
+
+    private static JsonReader newReader(String result) {
+    	JsonReader reader = new JsonReader(new StringReader(result));
+    	reader.setLenient(true);
+    	return reader;
+    }
+
+    private static <T> T readResponse(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	if(reader.peek() != JsonToken.BEGIN_OBJECT) {
+    		return readValue(reader, clz);
+    	}
+    	
+    	reader.beginObject();
+    	String name = reader.hasNext() ? reader.nextName() : null;
+    	if(ResultKey.equals(name)) {
+    		T value = readValue(reader, clz);
+    		skipFields(reader);
+    		return value;
+    	}
+    	return readFields(reader, clz, name);
+    }
+
+    private static <T> List<T> readArrayResponse(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	if(reader.peek() == JsonToken.BEGIN_OBJECT) {
+    		reader.beginObject();
+    		if(!reader.hasNext() || !reader.nextName().equals(ResultKey)) {
+    			return null;
+    		}
+    		List<T> value = readArray(reader, clz);
+    		skipFields(reader);
+    		return value;
+    	}
+    	return readArray(reader, clz);
+    }
+
+    private static <T> ListResponse<T> readListResponse(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	reader.beginObject();
+    	String name = reader.hasNext() ? reader.nextName() : null;
+    	if(ResultKey.equals(name)) {
+    		ListResponse<T> value = readListResponse(reader, clz);
+    		skipFields(reader);
+    		return value;
+    	}
+    	
+    	ListResponse<T> listResponse = new ListResponse<T>();
+    	for(; name != null; name = reader.hasNext() ? reader.nextName() : null) {
+    		if(name.equals("totalCount")) {
+    			Integer totalCount = readInt(reader);
+    			if(totalCount != null) {
+    				listResponse.setTotalCount(totalCount);
+    			}
+    		}
+    		else if(name.equals("objects")) {
+    			listResponse.setObjects(readArray(reader, clz));
+    		}
+    		else {
+    			reader.skipValue();
+    		}
+    	}
+    	reader.endObject();
+    	
+    	return listResponse;
+    }
+
+    private static void skipFields(JsonReader reader) throws IOException {
+    	while(reader.hasNext()) {
+    		reader.nextName();
+    		reader.skipValue();
+    	}
+    	reader.endObject();
+    }
+
+    @SuppressWarnings("unchecked")
+	private static <T> T readValue(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	switch(reader.peek()) {
+    		case NULL:
+    			reader.nextNull();
+    			return null;
+    		case BEGIN_ARRAY:
+    			return (T) readArray(reader, clz);
+    		case BEGIN_OBJECT:
+    			return readObject(reader, clz);
+    		default:
+    			break;
+    	}
+    	
+    	if(clz == String.class) {
+    		return (T) readString(reader);
+    	}
+    	if(clz == Integer.class) {
+    		return (T) readInt(reader);
+    	}
+    	if(clz == Long.class) {
+    		return (T) readLong(reader);
+    	}
+    	if(clz == Boolean.class) {
+    		return (T) readBoolean(reader);
+    	}
+    	if(clz == Double.class) {
+    		return (T) readDouble(reader);
+    	}
+    	
+    	switch(reader.peek()) {
+    		case BOOLEAN:
+    			return (T) (Object) reader.nextBoolean();
+    		case NUMBER:
+    			return (T) (Object) reader.nextDouble();
+    		default:
+    			return (T) reader.nextString();
+    	}
+    }
+
+    /**
+     * Reads an object from a streamed response.
+     * 
+     * @param reader JSON reader, positioned at the object
+     * @param clz expected class, used when the object has no objectType or an unknown one
+     * @return the object or null
+     * @throws IOException on invalid JSON
+     * @throws APIException on invalid object
+     */
+    public static <T> T readObject(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	reader.beginObject();
+    	return readFields(reader, clz, reader.hasNext() ? reader.nextName() : null);
+    }
+
+    @SuppressWarnings("unchecked")
+	private static <T> T readFields(JsonReader reader, Class<T> clz, String name) throws IOException, APIException {
+    	// speculatively decode into the expected class, when it's a concrete generated type
+    	ObjectBase object = TypeRegistry.newInstance(clz);
+    	String objectType = null;
+    	JsonObject buffer = null;
+    	
+    	for(; name != null; name = reader.hasNext() ? reader.nextName() : null) {
+    		if(objectType == null && name.equals(ObjectTypeKey)) {
+    			objectType = reader.nextString();
+    			if(object != null && objectType.equals(TypeRegistry.getObjectType(object.getClass()))) {
+    				continue;
+    			}
+    			
+    			// the buffer holds exactly the properties the speculative object didn't read
+    			ObjectBase typed;
+    			try {
+    				typed = buffer != null ? TypeRegistry.create(objectType, buffer) : TypeRegistry.newInstance(objectType);
+    			} catch (RuntimeException e) {
+    				throw new APIException(FailureStep.OnResponse, e);
+    			}
+    			if(typed != null) {
+    				if(object != null) {
+    					typed.copyFields(object);
+    				}
+    				object = typed;
+    				buffer = null;
+    			}
+    			// unknown types fall back to the expected class, the speculative object if there is one
+    			continue;
+    		}
+    		
+    		if(object != null) {
+    			if(object.readField(name, reader)) {
+    				continue;
+    			}
+    			if(objectType != null) {
+    				reader.skipValue();
+    				continue;
+    			}
+    		}
+    		
+    		if(buffer == null) {
+    			buffer = new JsonObject();
+    		}
+    		buffer.add(name, elementParser.parse(reader));
+    	}
+    	reader.endObject();
+    	
+    	if(object != null) {
+    		return (T) object;
+    	}
+    	
+    	if(buffer == null) {
+    		buffer = new JsonObject();
+    	}
+    	if(objectType != null) {
+    		buffer.addProperty(ObjectTypeKey, objectType);
+    	}
+    	return parseObject(buffer, clz);
+    }
+
+    public static <T> List<T> readArray(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	List<T> array = new ArrayList<T>();
+    	reader.beginArray();
+    	while(reader.hasNext()) {
+    		array.add(readValue(reader, clz));
+    	}
+    	reader.endArray();
+    	
+    	return array;
+    }
+
+    public static <T> Map<String, T> readMap(JsonReader reader, Class<T> clz) throws IOException, APIException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	Map<String, T> map = new HashMap<String, T>();
+    	reader.beginObject();
+    	while(reader.hasNext()) {
+    		String key = reader.nextName();
+    		reader.beginObject();
+    		map.put(key, readFields(reader, clz, reader.hasNext() ? reader.nextName() : null));
+    	}
+    	reader.endObject();
     	
     	return map;
     }
+
+    /**
+     * Copies the next value as compact JSON text without building any object, used to keep
+     * parts of a response that are parsed only if needed.
+     * 
+     * @param reader JSON reader, positioned at an object or array
+     * @return the JSON text
+     * @throws IOException on invalid JSON
+     */
+    public static String readRaw(JsonReader reader) throws IOException {
+    	StringBuilder out = new StringBuilder(256);
+    	copyValue(reader, out);
+    	return out.toString();
+    }
+
+    /**
+     * @param jsonElement parsed JSON
+     * @return the same JSON as compact text
+     */
+    public static String toRaw(JsonElement jsonElement) {
+    	StringBuilder out = new StringBuilder(256);
+    	copyValue(jsonElement, out);
+    	return out.toString();
+    }
+
+    private static void copyValue(JsonElement jsonElement, StringBuilder out) {
+    	if(jsonElement.isJsonArray()) {
+    		out.append('[');
+    		boolean first = true;
+    		for(JsonElement item : jsonElement.getAsJsonArray()) {
+    			if(!first) {
+    				out.append(',');
+    			}
+    			copyValue(item, out);
+    			first = false;
+    		}
+    		out.append(']');
+    	}
+    	else if(jsonElement.isJsonObject()) {
+    		out.append('{');
+    		boolean first = true;
+    		for(Map.Entry<String, JsonElement> entry : jsonElement.getAsJsonObject().entrySet()) {
+    			if(!first) {
+    				out.append(',');
+    			}
+    			appendString(out, entry.getKey());
+    			out.append(':');
+    			copyValue(entry.getValue(), out);
+    			first = false;
+    		}
+    		out.append('}');
+    	}
+    	else if(jsonElement.isJsonNull()) {
+    		out.append("null");
+    	}
+    	else {
+    		JsonPrimitive primitive = jsonElement.getAsJsonPrimitive();
+    		if(primitive.isString()) {
+    			appendString(out, primitive.getAsString());
+    		}
+    		else {
+    			// numbers keep their original digits
+    			out.append(primitive.getAsString());
+    		}
+    	}
+    }
+
+    private static void copyValue(JsonReader reader, StringBuilder out) throws IOException {
+    	switch(reader.peek()) {
+			case BEGIN_ARRAY:
+				reader.beginArray();
+				out.append('[');
+				for(boolean first = true; reader.hasNext(); first = false) {
+					if(!first) {
+						out.append(',');
+					}
+					copyValue(reader, out);
+				}
+				reader.endArray();
+				out.append(']');
+				break;
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				out.append('{');
+				for(boolean first = true; reader.hasNext(); first = false) {
+					if(!first) {
+						out.append(',');
+					}
+					appendString(out, reader.nextName());
+					out.append(':');
+					copyValue(reader, out);
+				}
+				reader.endObject();
+				out.append('}');
+				break;
+			case BOOLEAN:
+				out.append(reader.nextBoolean());
+				break;
+			case NUMBER:
+				// keeps the original digits
+				out.append(reader.nextString());
+				break;
+			case NULL:
+				reader.nextNull();
+				out.append("null");
+				break;
+			default:
+				appendString(out, reader.nextString());
+				break;
+    	}
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+    	out.append('"');
+    	int last = 0;
+    	int length = value.length();
+    	for(int i = 0; i < length; i++) {
+    		char c = value.charAt(i);
+    		if(c == '"' || c == '\\') {
+    			out.append(value, last, i).append('\\').append(c);
+    			last = i + 1;
+    		}
+    		else if(c < 0x20 || c == '\u2028' || c == '\u2029') {
+    			out.append(value, last, i).append(String.format("\\u%04x", (int) c));
+    			last = i + 1;
+    		}
+    	}
+    	out.append(value, last, length).append('"');
+    }
+
+    public static String readString(JsonReader reader) throws IOException {
+    	switch(reader.peek()) {
+    		case NULL:
+    			reader.nextNull();
+    			return null;
+    		case BOOLEAN:
+    			return String.valueOf(reader.nextBoolean());
+    		default:
+    			return dedup(reader.nextString());
+    	}
+    }
+
+    public static Integer readInt(JsonReader reader) throws IOException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	try {
+    		return reader.nextInt();
+    	}
+    	catch(NumberFormatException e) {
+    		// same conversion as JsonPrimitive.getAsInt, e.g. for "1.0"
+    		return new BigDecimal(reader.nextString()).intValue();
+    	}
+    }
+
+    public static Long readLong(JsonReader reader) throws IOException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	try {
+    		return reader.nextLong();
+    	}
+    	catch(NumberFormatException e) {
+    		return new BigDecimal(reader.nextString()).longValue();
+    	}
+    }
+
+    public static Boolean readBoolean(JsonReader reader) throws IOException {
+    	switch(reader.peek()) {
+    		case NULL:
+    			reader.nextNull();
+    			return null;
+    		case BOOLEAN:
+    			return reader.nextBoolean();
+    		default:
+    			return Boolean.parseBoolean(reader.nextString());
+    	}
+    }
+
+    public static Double readDouble(JsonReader reader) throws IOException {
+    	if(reader.peek() == JsonToken.NULL) {
+    		reader.nextNull();
+    		return null;
+    	}
+    	
+    	return reader.nextDouble();
+    }
 }
@@ -0,0 +1,48 @@
+package com.kaltura.client.utils;
+
+/**
+ * Bounded table of recently parsed strings, used to share a single instance between the
+ * many equal values of large responses, such as tags, user ids and status strings.
+ * <p>
+ * Each string maps to one slot by its hash and replaces whatever the slot held, so the table
+ * never grows, old values are simply overwritten and become collectable once no parsed object
+ * refers to them. Slots are read and written without locking, a lost race only costs a duplicate.
+ */
+final class StringPool {
+
+	/**
+	 * Longer strings are rarely repeated, e.g. descriptions, and are not pooled.
+	 */
+	static final int MaxLength = 128;
+
+	private final String[] slots;
+	private final int mask;
+
+	/**
+	 * @param size number of slots, rounded up to a power of two
+	 */
+	StringPool(int size) {
+		int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+		slots = new String[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @param value parsed string
+	 * @return an equal string already held by the pool, or the value itself
+	 */
+	String intern(String value) {
+		if(value == null || value.length() > MaxLength) {
+			return value;
+		}
+
+		int hash = value.hashCode();
+		int index = (hash ^ (hash >>> 16)) & mask;
+		String pooled = slots[index];
+		if(pooled != null && pooled.equals(value)) {
+			return pooled;
+		}
+		slots[index] = value;
+		return value;
+	}
+}
@@ -19,7 +19,13 @@ public abstract class ArrayRequestBuilder<RS, TK, S> extends RequestBuilder<List
 	}
 
     protected Object parse(String response) throws APIException {
-    	return GsonParser.parseArray(response, type);
+    	return parse(response, null);
+    }
+
+    @Override
+    protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+    	int parallelThreshold = ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config);
+    	return GsonParser.parseArray(response, type, parallelThreshold);
     }
 
     @SuppressWarnings("unchecked")
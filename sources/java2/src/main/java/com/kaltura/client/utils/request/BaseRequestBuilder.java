@@ -1,5 +1,6 @@
 package com.kaltura.client.utils.request;
 
+import com.google.gson.JsonElement;
 import com.kaltura.client.Client;
 import com.kaltura.client.Configuration;
 import com.kaltura.client.FileHolder;
@@ -13,6 +14,8 @@ import com.kaltura.client.utils.response.OnCompletion;
 import com.kaltura.client.utils.response.base.Response;
 import com.kaltura.client.utils.response.base.ResponseElement;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,7 +28,6 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
     protected String url;
     protected Files files = null;
     protected HashMap<String, String> headers;
-    private ConnectionConfiguration connectionConfig;
 
     /**
      * callback for the parsed response.
@@ -85,6 +87,9 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
     }
 
     public void setHeaders(String ... nameValueHeaders){
+        if (headers == null) {
+            headers = new HashMap<String, String>();
+        }
         for (int i = 0 ; i < nameValueHeaders.length-1 ; i+=2){
             this.headers.put(nameValueHeaders[i], nameValueHeaders[i+1]);
         }
@@ -102,11 +107,12 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
 
     @Override
     public ConnectionConfiguration config() {
-        return connectionConfig;
+        return null;
     }
 
     /**
      * Builds the final list of parameters including the default params and the configured params.
+     * The builder's own params are copied, not modified, so the builder can be built again.
      *
      * @param configurations client configurations
      * @param addSignature add signature
@@ -114,41 +120,52 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
      */
     protected Params prepareParams(Client configurations, boolean addSignature) {
 
-        if(params == null){
-            params = new Params();
+        Params requestParams = new Params();
+        if(params != null){
+            requestParams.putAll(params);
         }
 
         // add default params:
         //params.add("format", configurations.getConnectionConfiguration().getServiceResponseTypeFormat());
-        params.add("ignoreNull", true);
+        requestParams.add("ignoreNull", true);
         if(configurations != null) {
-            params.putAll(configurations.getClientConfiguration());
-            params.putAll(configurations.getRequestConfiguration());
+            requestParams.putAll(configurations.getClientConfiguration());
+            requestParams.putAll(configurations.getRequestConfiguration());
         }
         if (addSignature) {
-            params.add("kalsig", EncryptionUtils.encryptMD5(params.toString()));
+            requestParams.add("kalsig", EncryptionUtils.encryptMD5(requestParams.toString()));
         }
-        return params;
+        return requestParams;
     }
 
-    private void prepareUrl(String endPoint) {
-        if (url == null) {
-            StringBuilder urlBuilder = new StringBuilder(endPoint.replaceAll("/$", ""))
-            .append("/")
-            .append(APIConstants.UrlApiVersion);
-
-            urlBuilder.append(getUrlTail());
-            url = urlBuilder.toString();
+    protected String prepareUrl(String endPoint) {
+        if (url != null) {
+            return url;
         }
+        StringBuilder urlBuilder = new StringBuilder(endPoint.replaceAll("/$", ""))
+        .append("/")
+        .append(APIConstants.UrlApiVersion);
+
+        urlBuilder.append(getUrlTail());
+        return urlBuilder.toString();
     }
 
     public RequestElement<ReturnedType> build(final Client client) {
         return build(client, false);
     }
 
-    @SuppressWarnings("unchecked")
 	@Override
     final public Response<ReturnedType> parseResponse(ResponseElement response) {
+        return parseResponse(response, null);
+    }
+
+    /**
+     * @param response executed request response
+     * @param config configuration of the connection the request was sent on, null if unknown
+     * @return parsed response
+     */
+    @SuppressWarnings("unchecked")
+    final public Response<ReturnedType> parseResponse(ResponseElement response, ConnectionConfiguration config) {
         ReturnedType result = null;
         APIException error = null;
 
@@ -156,15 +173,50 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
             error = generateErrorResponse(response);
         } else {
             try {
-                result = (ReturnedType) parse(response.getResponse());
+                result = (ReturnedType) parse(response.getResponse(), config);
             } catch (APIException e) {
                 error = e;
+                int maxErrorBodySize = ExtendedConnectionConfiguration.Values.getMaxErrorBodySize(config);
+                if(maxErrorBodySize != 0 && e.getFailedOn() == APIException.FailureStep.OnResponse) {
+                	error.setResponseBody(GsonParser.truncate(response.getResponse(), maxErrorBodySize));
+                }
             }
         }
 
         return new Response<ReturnedType>(result, error);
     }
 
+    /**
+     * @return whether the built request parses its response from the body stream, see {@link StreamingRequestElement}
+     */
+    protected boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Parses a successful response from its body stream, the default reads the whole body and parses it as usual.
+     *
+     * @param response request id, code and headers of the response, without body
+     * @param body response body
+     * @param config configuration of the connection the request was sent on
+     * @param delivery delivers completions of calls completed while reading, see {@link StreamingRequestElement.Delivery}
+     * @return parsed response
+     */
+    protected Response<ReturnedType> parseResponse(ResponseElement response, Reader body, ConnectionConfiguration config, StreamingRequestElement.Delivery delivery) {
+        ExecutedRequest executedRequest = new ExecutedRequest().requestId(response.getRequestId()).headers(response.getHeaders()).code(response.getCode());
+        try {
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[8192];
+            for(int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+                content.append(buffer, 0, read);
+            }
+            executedRequest.response(content.toString()).success(true);
+        } catch (IOException e) {
+            executedRequest.error(e).success(false);
+        }
+        return parseResponse(executedRequest, config);
+    }
+
     @Override
     public void onComplete(Response<ReturnedType> response) {
         if(onCompletion != null) {
@@ -172,41 +224,67 @@ public abstract class BaseRequestBuilder<ReturnedType, SelfType> extends Request
         }
     }
 
+    /**
+     * Parses with connection specific parsing options, the default ignores the configuration.
+     */
+    protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+    	return parse(response);
+    }
+
     protected Object parse(String response) throws APIException {
     	if(response.length() == 0 || response.toLowerCase().equals("null")) {
     		return null;
     	}
     	return GsonParser.parseObject(response, type);
     }
-    
+
+    /**
+     * Parses the result of this call within a multi-request response, the default parses it as the returned type.
+     *
+     * @param result the result's JSON
+     * @param config configuration of the connection the request was sent on, null if unknown
+     * @return the parsed result
+     * @throws APIException if the call failed or its result is invalid
+     */
+    protected Object parseItem(JsonElement result, ConnectionConfiguration config) throws APIException {
+    	return GsonParser.parseObject(result, getType());
+    }
+
     protected APIException generateErrorResponse(ResponseElement response) {
     	APIException exception = new APIException(response.getError().getMessage());
     	exception.setCode(String.valueOf(response.getError().getCode()));
     	return exception;
     }
     
+    /**
+     * Signs and encodes the request as it is now. The returned request is independent of
+     * the builder, which is left unchanged and may be modified and built again.
+     *
+     * @param client client to take the configuration from, defaults are used when null
+     * @param addSignature add kalsig to the parameters
+     * @return immutable request, ready to be queued
+     */
     public RequestElement<ReturnedType> build(final Client client, boolean addSignature) {
-        connectionConfig = client != null ? client.getConnectionConfiguration() : Configuration.getDefaults();
+        ConnectionConfiguration config = client != null ? client.getConnectionConfiguration() : Configuration.getDefaults();
 
-        prepareParams(client, addSignature);
-        prepareHeaders(connectionConfig);
-        prepareUrl(connectionConfig.getEndpoint());
+        Params requestParams = prepareParams(client, addSignature);
+        HashMap<String, String> requestHeaders = prepareHeaders(config);
+        String requestUrl = prepareUrl(config.getEndpoint());
 
-        return this;
+        return new BuiltRequest<ReturnedType>(this, config, getMethod(), requestUrl, requestHeaders, requestParams.toString(), files);
     }
 
-    protected void prepareHeaders(ConnectionConfiguration config) {
-        if (headers == null) {
-            headers = new HashMap<String, String>();
-        }
-        addDefaultHeaders();
+    protected HashMap<String, String> prepareHeaders(ConnectionConfiguration config) {
+        HashMap<String, String> requestHeaders = headers != null ? new HashMap<String, String>(headers) : new HashMap<String, String>();
+        addDefaultHeaders(requestHeaders);
 
-        if (!headers.containsKey(APIConstants.HeaderAcceptEncoding) && config.getAcceptGzipEncoding()) {
-            headers.put(APIConstants.HeaderAcceptEncoding, APIConstants.HeaderEncodingGzip);
+        if (!requestHeaders.containsKey(APIConstants.HeaderAcceptEncoding) && config.getAcceptGzipEncoding()) {
+            requestHeaders.put(APIConstants.HeaderAcceptEncoding, APIConstants.HeaderEncodingGzip);
         }
+        return requestHeaders;
     }
 
-    private void addDefaultHeaders() {
+    private static void addDefaultHeaders(HashMap<String, String> headers) {
         if(!headers.containsKey(APIConstants.HeaderAccept)) {
             headers.put(APIConstants.HeaderAccept, "application/json");
         }
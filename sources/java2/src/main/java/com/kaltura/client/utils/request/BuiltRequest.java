@@ -0,0 +1,133 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.Files;
+import com.kaltura.client.utils.APIConstants;
+import com.kaltura.client.utils.response.base.Response;
+import com.kaltura.client.utils.response.base.ResponseElement;
+
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+
+/**
+ * Immutable wire form of a request, produced by {@link BaseRequestBuilder#build}.
+ * <p>
+ * Url, headers and the encoded body are computed once when the request is built and
+ * nothing in here refers back to the builder's parameters, so the builder can be
+ * changed and built again, or the same instance executed from several threads,
+ * without affecting requests that were already built.
+ * Parsing and completion are delegated to the builder that created the request.
+ */
+public final class BuiltRequest<T> implements StreamingRequestElement<T>, EncodedRequestElement<T> {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final BaseRequestBuilder<T, ?> builder;
+    private final ConnectionConfiguration config;
+    private final String method;
+    private final String url;
+    private final HashMap<String, String> headers;
+    private final byte[] body;
+    private final Files files;
+    private final String tag;
+
+    BuiltRequest(BaseRequestBuilder<T, ?> builder, ConnectionConfiguration config, String method, String url,
+                 HashMap<String, String> headers, String body, Files files) {
+        this.builder = builder;
+        this.config = config;
+        this.method = method;
+        this.url = url;
+        this.headers = headers;
+        this.body = body != null ? body.getBytes(UTF8) : null;
+        this.tag = builder.getTag();
+
+        if (files != null) {
+            this.files = new Files();
+            this.files.add(files);
+        } else {
+            this.files = null;
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return headers.get(APIConstants.HeaderContentType);
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Decodes the body on every call, use {@link #getBodyBytes()} to send it.
+     */
+    @Override
+    public String getBody() {
+        return body != null ? new String(body, UTF8) : null;
+    }
+
+    /**
+     * @return the UTF-8 encoded body, shared between callers and must not be modified
+     */
+    @Override
+    public byte[] getBodyBytes() {
+        return body;
+    }
+
+    @Override
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * @return a copy of the files, the built request keeps its own set
+     */
+    @Override
+    public Files getFiles() {
+        if (files == null) {
+            return null;
+        }
+        Files copy = new Files();
+        copy.add(files);
+        return copy;
+    }
+
+    /**
+     * @return a copy of the headers, the built request keeps its own set
+     */
+    @Override
+    public HashMap<String, String> getHeaders() {
+        return new HashMap<String, String>(headers);
+    }
+
+    @Override
+    public ConnectionConfiguration config() {
+        return config;
+    }
+
+    @Override
+    public Response<T> parseResponse(ResponseElement responseElement) {
+        return builder.parseResponse(responseElement, config);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return builder.isStreaming();
+    }
+
+    @Override
+    public Response<T> parseResponse(ResponseElement responseElement, Reader body, Delivery delivery) {
+        return builder.parseResponse(responseElement, body, config, delivery);
+    }
+
+    @Override
+    public void onComplete(Response<T> response) {
+        builder.onComplete(response);
+    }
+}
@@ -0,0 +1,481 @@
+package com.kaltura.client.utils.request;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.kaltura.client.Client;
+import com.kaltura.client.Files;
+import com.kaltura.client.Params;
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.utils.GsonParser;
+import com.kaltura.client.utils.response.base.Response;
+import com.kaltura.client.utils.response.base.ResponseElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multi-request sent as several smaller multi-requests, built by {@link MultiRequestBuilder#build}
+ * when the calls exceed the configured limits or when unlinked calls are sent separately.
+ * <p>
+ * Each part holds a snapshot of its calls' parameters, taken when the request is built.
+ * Parts that don't use results of other parts are sent concurrently, the others are sent once the
+ * parts they depend on completed, with their <code>{id:result:path}</code> tokens replaced by the
+ * values returned. Tokens between calls of the same part are renumbered to the ids within the part.
+ * A call that depends on a failed call, or on a value missing from its result, is not sent and
+ * completes with an error.
+ * <p>
+ * The results are combined in the order of the calls and passed to the multi-request completion,
+ * which completes the inner requests. A part that failed as a whole fails each of its calls,
+ * without failing the other parts.
+ */
+public final class ChunkedMultiRequest implements CompositeRequestElement<List<Object>> {
+
+    private final MultiRequestBuilder builder;
+    private final RequestElement<List<Object>> whole;
+    private final Client client;
+    private final boolean addSignature;
+    private final HashMap<String, String> headers;
+
+    private final MultiRequestPlan plan;
+    private final String[] ids;
+    private final int[][] parts;
+    private final int[] partOf;
+    private final int[][] dependencies;
+
+    /**
+     * Parts with results used by other parts, their responses are kept until the execution completes.
+     */
+    private final boolean[] referenced;
+
+    ChunkedMultiRequest(MultiRequestBuilder builder, Client client, boolean addSignature, RequestElement<List<Object>> whole,
+                        MultiRequestPlan plan, List<int[]> partition) {
+        this.builder = builder;
+        this.whole = whole;
+        this.client = client;
+        this.addSignature = addSignature;
+        this.headers = builder.headers != null ? new HashMap<String, String>(builder.headers) : null;
+        this.plan = plan;
+        this.ids = plan.ids;
+
+        parts = partition.toArray(new int[partition.size()][]);
+        partOf = new int[plan.size()];
+        for(int part = 0; part < parts.length; part++) {
+            for(int call : parts[part]) {
+                partOf[call] = part;
+            }
+        }
+
+        referenced = new boolean[parts.length];
+        dependencies = new int[parts.length][];
+        for(int part = 0; part < parts.length; part++) {
+            Set<Integer> partDependencies = new LinkedHashSet<Integer>();
+            for(int call : parts[part]) {
+                for(int source : plan.sources[call]) {
+                    if(partOf[source] != part) {
+                        partDependencies.add(partOf[source]);
+                        referenced[partOf[source]] = true;
+                    }
+                }
+            }
+            dependencies[part] = new int[partDependencies.size()];
+            int index = 0;
+            for(int dependency : partDependencies) {
+                dependencies[part][index++] = dependency;
+            }
+        }
+    }
+
+    /**
+     * @return number of multi-requests the calls are sent in
+     */
+    public int getPartsCount() {
+        return parts.length;
+    }
+
+    @Override
+    public String queue(RequestQueue queue) {
+        Execution execution = new Execution(queue, true);
+        String id = null;
+        for(Part part : execution.start()) {
+            String partId = queue.queue(part.build(client, addSignature));
+            if(id == null) {
+                id = partId;
+            }
+        }
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Response<List<Object>> execute(RequestQueue queue) {
+        Execution execution = new Execution(queue, false);
+        List<Part> ready = execution.start();
+        while(!ready.isEmpty()) {
+            List<Part> next = new ArrayList<Part>();
+            for(Part part : ready) {
+                Response<List<Object>> response = (Response<List<Object>>) queue.execute(part.build(client, addSignature));
+                next.addAll(execution.completed(part, response));
+            }
+            ready = next;
+        }
+        return execution.getResponse();
+    }
+
+    @Override
+    public String getContentType() {
+        return whole.getContentType();
+    }
+
+    @Override
+    public String getMethod() {
+        return whole.getMethod();
+    }
+
+    @Override
+    public String getUrl() {
+        return whole.getUrl();
+    }
+
+    @Override
+    public String getBody() {
+        return whole.getBody();
+    }
+
+    @Override
+    public String getTag() {
+        return whole.getTag();
+    }
+
+    @Override
+    public Files getFiles() {
+        return whole.getFiles();
+    }
+
+    @Override
+    public HashMap<String, String> getHeaders() {
+        return whole.getHeaders();
+    }
+
+    @Override
+    public ConnectionConfiguration config() {
+        return whole.config();
+    }
+
+    @Override
+    public Response<List<Object>> parseResponse(ResponseElement responseElement) {
+        return whole.parseResponse(responseElement);
+    }
+
+    @Override
+    public void onComplete(Response<List<Object>> response) {
+        builder.onComplete(response);
+    }
+
+    /**
+     * State of one sending of the parts.
+     */
+    private class Execution {
+
+        private final RequestQueue queue;
+
+        /**
+         * Whether to call the completion, executions sent synchronously only return the response.
+         */
+        private final boolean notify;
+        private final Object[] results = new Object[plan.size()];
+
+        /**
+         * Position of each sent call in its part's response, -1 if not sent.
+         */
+        private final int[] positions = new int[plan.size()];
+        private final String[] responses = new String[parts.length];
+        private final JsonArray[] items = new JsonArray[parts.length];
+        private final boolean[] started = new boolean[parts.length];
+        private final boolean[] completed = new boolean[parts.length];
+        private int running = 0;
+        private int remaining = parts.length;
+
+        Execution(RequestQueue queue, boolean notify) {
+            this.queue = queue;
+            this.notify = notify;
+            Arrays.fill(positions, -1);
+        }
+
+        synchronized List<Part> start() {
+            List<Part> ready = schedule();
+            if(remaining == 0) {
+                complete();
+            }
+            return ready;
+        }
+
+        List<Part> completed(Part part, Response<List<Object>> response) {
+            List<Part> ready;
+            synchronized (this) {
+                for(int position = 0; position < part.calls.length; position++) {
+                    int call = part.calls[position];
+                    if(response.error != null) {
+                        results[call] = response.error;
+                    }
+                    else if(response.results == null || response.results.size() <= position) {
+                        results[call] = new APIException(APIException.FailureStep.OnResponse, "Missing result of request " + ids[call]);
+                    }
+                    else {
+                        results[call] = response.results.get(position);
+                    }
+                }
+                if(response.error == null && referenced[part.index]) {
+                    responses[part.index] = part.response;
+                }
+                completed[part.index] = true;
+                running--;
+                remaining--;
+
+                ready = schedule();
+                if(remaining > 0) {
+                    return ready;
+                }
+            }
+            complete();
+            return ready;
+        }
+
+        private void complete() {
+            if(notify) {
+                onComplete(getResponse());
+            }
+        }
+
+        synchronized Response<List<Object>> getResponse() {
+            return new Response<List<Object>>(new ArrayList<Object>(Arrays.asList(results)), null);
+        }
+
+        /**
+         * Prepares the parts whose dependencies completed, parts left with no calls to send complete right away.
+         */
+        private List<Part> schedule() {
+            List<Part> ready = new ArrayList<Part>();
+            boolean changed = true;
+            while(changed) {
+                changed = false;
+                for(int part = 0; part < parts.length; part++) {
+                    if(started[part] || !isReady(part)) {
+                        continue;
+                    }
+                    started[part] = true;
+                    Part prepared = prepare(part);
+                    if(prepared.calls.length > 0) {
+                        running++;
+                        ready.add(prepared);
+                    }
+                    else {
+                        completed[part] = true;
+                        remaining--;
+                        changed = true;
+                    }
+                }
+            }
+
+            if(running == 0 && ready.isEmpty() && remaining > 0) {
+                // circular dependencies between parts, can't happen with the partitions built by MultiRequestPlan
+                for(int part = 0; part < parts.length; part++) {
+                    if(!started[part]) {
+                        for(int call : parts[part]) {
+                            results[call] = new APIException(APIException.FailureStep.OnRequest, "Linked requests of request " + ids[call] + " can't be resolved");
+                        }
+                        started[part] = completed[part] = true;
+                        remaining--;
+                    }
+                }
+            }
+            return ready;
+        }
+
+        private boolean isReady(int part) {
+            for(int dependency : dependencies[part]) {
+                if(!completed[dependency]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Part prepare(final int index) {
+            final Map<Integer, String> localIds = new HashMap<Integer, String>();
+            List<Integer> calls = new ArrayList<Integer>();
+            Params partParams = new Params();
+            Files partFiles = null;
+
+            for(final int call : parts[index]) {
+                Params callParams;
+                try {
+                    callParams = (Params) plan.copy(plan.params[call], call, new MultiRequestPlan.TokenMapper() {
+                        @Override
+                        public Object map(int call, int source, String path, String token, boolean whole) throws APIException {
+                            return resolve(index, source, path, token, whole, localIds);
+                        }
+                    });
+                } catch (APIException e) {
+                    results[call] = e;
+                    continue;
+                }
+
+                String localId = String.valueOf(calls.size() + 1);
+                localIds.put(call, localId);
+                positions[call] = calls.size();
+                calls.add(call);
+                partParams.add(localId, callParams);
+                if(plan.files[call] != null) {
+                    if(partFiles == null) {
+                        partFiles = new Files();
+                    }
+                    partFiles.add(localId, plan.files[call]);
+                }
+            }
+
+            int[] sent = new int[calls.size()];
+            List<RequestBuilder<?, ?, ?>> sentRequests = new ArrayList<RequestBuilder<?, ?, ?>>(sent.length);
+            for(int position = 0; position < sent.length; position++) {
+                sent[position] = calls.get(position);
+                sentRequests.add(plan.requests[sent[position]]);
+            }
+            return new Part(this, index, sent, sentRequests, partParams, partFiles);
+        }
+
+        private Object resolve(int part, int source, String path, String token, boolean whole, Map<Integer, String> localIds) throws APIException {
+            if(partOf[source] == part) {
+                String localId = localIds.get(source);
+                if(localId == null) {
+                    throw new APIException(APIException.FailureStep.OnRequest, "Linked request " + ids[source] + " failed");
+                }
+                return "{" + localId + ":result" + path + "}";
+            }
+
+            if(results[source] instanceof APIException || positions[source] < 0) {
+                throw new APIException(APIException.FailureStep.OnRequest, "Linked request " + ids[source] + " failed");
+            }
+
+            JsonElement value = getItems(partOf[source]).get(positions[source]);
+            for(String key : path.split(":")) {
+                if(key.length() == 0 || value == null) {
+                    continue;
+                }
+                if(value.isJsonObject()) {
+                    value = value.getAsJsonObject().get(key);
+                }
+                else if(value.isJsonArray() && key.matches("^\\d+$") && Integer.parseInt(key) < value.getAsJsonArray().size()) {
+                    value = value.getAsJsonArray().get(Integer.parseInt(key));
+                }
+                else {
+                    value = null;
+                }
+            }
+            if(value == null) {
+                throw new APIException(APIException.FailureStep.OnRequest, "Linked value " + token + " is missing in the result of request " + ids[source]);
+            }
+
+            if(whole) {
+                return toParamValue(value);
+            }
+            return value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        }
+
+        private JsonArray getItems(int part) throws APIException {
+            if(items[part] == null) {
+                try {
+                    JsonElement element = new JsonParser().parse(responses[part]);
+                    if(element.isJsonObject() && element.getAsJsonObject().has("result")) {
+                        element = element.getAsJsonObject().get("result");
+                    }
+                    items[part] = element.getAsJsonArray();
+                } catch (JsonParseException | IllegalStateException e) {
+                    throw new APIException(APIException.FailureStep.OnResponse, "Invalid JSON response: " + GsonParser.snippet(responses[part]));
+                }
+            }
+            return items[part];
+        }
+    }
+
+    /**
+     * Multi-request of one part, completes into its execution.
+     */
+    private class Part extends BaseRequestBuilder<List<Object>, Part> {
+
+        private final Execution execution;
+        private final int index;
+        private final int[] calls;
+        private final List<RequestBuilder<?, ?, ?>> callRequests;
+        private String response;
+
+        Part(Execution execution, int index, int[] calls, List<RequestBuilder<?, ?, ?>> callRequests, Params partParams, Files partFiles) {
+            super(null);
+            this.execution = execution;
+            this.index = index;
+            this.calls = calls;
+            this.callRequests = callRequests;
+            this.params = partParams;
+            this.files = partFiles;
+            this.headers = ChunkedMultiRequest.this.headers;
+        }
+
+        @Override
+        protected String getUrlTail() {
+            return builder.getUrlTail();
+        }
+
+        @Override
+        public String getTag() {
+            return builder.getTag();
+        }
+
+        @Override
+        protected Object parse(String response) throws APIException {
+            return parse(response, null);
+        }
+
+        @Override
+        protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+            if(referenced[index]) {
+                this.response = response;
+            }
+            int parallelThreshold = ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config);
+            return GsonParser.parseArray(response, MultiRequestBuilder.getItemParser(callRequests, config), parallelThreshold);
+        }
+
+        @Override
+        public void onComplete(Response<List<Object>> response) {
+            for(Part part : execution.completed(this, response)) {
+                execution.queue.queue(part.build(client, addSignature));
+            }
+        }
+    }
+
+    private static Object toParamValue(JsonElement value) {
+        if(value.isJsonNull()) {
+            return null;
+        }
+        if(value.isJsonObject()) {
+            Params params = new Params();
+            for(Map.Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+                params.put(entry.getKey(), toParamValue(entry.getValue()));
+            }
+            return params;
+        }
+        if(value.isJsonArray()) {
+            List<Object> list = new ArrayList<Object>();
+            for(JsonElement item : value.getAsJsonArray()) {
+                list.add(toParamValue(item));
+            }
+            return list;
+        }
+        return value.getAsString();
+    }
+}
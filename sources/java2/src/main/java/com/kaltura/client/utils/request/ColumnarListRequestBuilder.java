@@ -0,0 +1,70 @@
+package com.kaltura.client.utils.request;
+
+import com.google.gson.JsonElement;
+import com.kaltura.client.Client;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ColumnarList;
+import com.kaltura.client.utils.GsonParser;
+
+import java.util.HashMap;
+
+/**
+ * Sends the request of a list builder and decodes the returned page into columns, see {@link ColumnarList}.
+ * <p>
+ * The parameters are shared with the list builder, so the filter and pager may still be changed
+ * on it, e.g. to fetch the next page, also once added to a multi-request. Headers and files are
+ * taken from the list builder when the request is built.
+ */
+public class ColumnarListRequestBuilder extends RequestBuilder<ColumnarList, Void, ColumnarListRequestBuilder> {
+
+    private final ListResponseRequestBuilder<?, ?, ?> list;
+    private final ColumnarList.Schema schema;
+
+    public ColumnarListRequestBuilder(ListResponseRequestBuilder<?, ?, ?> list, ColumnarList.Schema schema) {
+        super(ColumnarList.class, list.getService(), list.getAction());
+        this.list = list;
+        this.schema = schema;
+        this.params = list.params;
+        this.files = list.files;
+    }
+
+    public ColumnarList.Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public RequestElement<ColumnarList> build(final Client client, boolean addSignature) {
+        this.files = list.files;
+        return super.build(client, addSignature);
+    }
+
+    @Override
+    protected HashMap<String, String> prepareHeaders(ConnectionConfiguration config) {
+        return list.prepareHeaders(config);
+    }
+
+    @Override
+    protected String prepareUrl(String endPoint) {
+        return list.prepareUrl(endPoint);
+    }
+
+    @Override
+    public String getTag() {
+        return list.getTag();
+    }
+
+    @Override
+    protected Object parse(String response) throws APIException {
+        return GsonParser.parseColumns(response, schema);
+    }
+
+    @Override
+    protected Object parseItem(JsonElement result, ConnectionConfiguration config) throws APIException {
+        return GsonParser.parseColumns(result, schema);
+    }
+
+	@Override
+	public Void getTokenizer() throws APIException {
+		throw new APIException(APIException.FailureStep.OnRequest, "Columnar list response can not be used as multi-request token");
+	}
+}
@@ -0,0 +1,30 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.utils.response.base.Response;
+
+/**
+ * Request that is sent as several calls, e.g. a multi-request split into chunks.
+ * <p>
+ * Queues that support it hand the request over to {@link #queue(RequestQueue)} or
+ * {@link #execute(RequestQueue)}, which send the calls through the same queue.
+ * Other queues may send it as a single call, as described by its {@link RequestElement} methods.
+ */
+public interface CompositeRequestElement<T> extends RequestElement<T> {
+
+    /**
+     * Sends the calls asynchronously, {@link #onComplete(Response)} is called once all of them completed.
+     *
+     * @param queue queue to send the calls through
+     * @return id of the first call sent, null if none was sent
+     */
+    String queue(RequestQueue queue);
+
+    /**
+     * Sends the calls synchronously.
+     *
+     * @param queue queue to send the calls through
+     * @return the combined response
+     */
+    Response<T> execute(RequestQueue queue);
+}
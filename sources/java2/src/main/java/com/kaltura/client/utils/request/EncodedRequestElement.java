@@ -0,0 +1,13 @@
+package com.kaltura.client.utils.request;
+
+/**
+ * Request that keeps its body encoded as it is sent, so queues don't encode it again on every send.
+ * Queues encode the {@link #getBody() body} of other requests as UTF-8.
+ */
+public interface EncodedRequestElement<T> extends RequestElement<T> {
+
+    /**
+     * @return the body as sent on the wire (UTF-8), or null when the request has no body
+     */
+    byte[] getBodyBytes();
+}
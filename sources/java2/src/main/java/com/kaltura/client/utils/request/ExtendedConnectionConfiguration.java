@@ -0,0 +1,90 @@
+package com.kaltura.client.utils.request;
+
+import java.util.zip.Deflater;
+
+/**
+ * Optional settings of the connection, a {@link ConnectionConfiguration} that doesn't implement
+ * this interface gets the defaults, see {@link Values}.
+ */
+public interface ExtendedConnectionConfiguration extends ConnectionConfiguration {
+
+    /**
+     * @return minimal request body size in bytes to send gzip compressed, negative value disables request compression
+     */
+    int getRequestCompressionMinSize();
+
+    /**
+     * @return deflate level (0-9, -1 for default) of compressed request bodies
+     */
+    int getRequestCompressionLevel();
+
+    /**
+     * @return minimal number of items in a list or multi-request response to parse them in parallel, negative value disables parallel parsing
+     */
+    int getParallelParseThreshold();
+
+    /**
+     * @return maximal number of characters of an invalid response body kept on the parsing {@link com.kaltura.client.types.APIException}, 0 keeps none, negative value keeps the whole body
+     */
+    int getMaxErrorBodySize();
+
+    /**
+     * @return maximal number of calls sent in one multi-request, larger multi-requests are sent in chunks, negative value for no limit
+     */
+    int getMultiRequestMaxCalls();
+
+    /**
+     * @return maximal size in bytes of the calls sent in one multi-request, larger multi-requests are sent in chunks, negative value for no limit
+     */
+    int getMultiRequestMaxSize();
+
+    /**
+     * Reads the optional settings of any connection configuration, null included, with their defaults.
+     */
+    final class Values {
+
+        public static final int DefaultRequestCompressionMinSize = -1;
+        public static final int DefaultRequestCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+        public static final int DefaultParallelParseThreshold = -1;
+        public static final int DefaultMaxErrorBodySize = 0;
+        public static final int DefaultMultiRequestMaxCalls = -1;
+        public static final int DefaultMultiRequestMaxSize = -1;
+
+        private Values() {
+        }
+
+        private static ExtendedConnectionConfiguration extended(ConnectionConfiguration config) {
+            return config instanceof ExtendedConnectionConfiguration ? (ExtendedConnectionConfiguration) config : null;
+        }
+
+        public static int getRequestCompressionMinSize(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getRequestCompressionMinSize() : DefaultRequestCompressionMinSize;
+        }
+
+        public static int getRequestCompressionLevel(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getRequestCompressionLevel() : DefaultRequestCompressionLevel;
+        }
+
+        public static int getParallelParseThreshold(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getParallelParseThreshold() : DefaultParallelParseThreshold;
+        }
+
+        public static int getMaxErrorBodySize(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getMaxErrorBodySize() : DefaultMaxErrorBodySize;
+        }
+
+        public static int getMultiRequestMaxCalls(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getMultiRequestMaxCalls() : DefaultMultiRequestMaxCalls;
+        }
+
+        public static int getMultiRequestMaxSize(ConnectionConfiguration config) {
+            ExtendedConnectionConfiguration extended = extended(config);
+            return extended != null ? extended.getMultiRequestMaxSize() : DefaultMultiRequestMaxSize;
+        }
+    }
+}
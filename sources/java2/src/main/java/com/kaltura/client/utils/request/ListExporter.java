@@ -0,0 +1,709 @@
+package com.kaltura.client.utils.request;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.kaltura.client.APIOkRequestsExecutor;
+import com.kaltura.client.Client;
+import com.kaltura.client.Params;
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.APIException.FailureStep;
+import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.utils.GsonParser;
+import com.kaltura.client.utils.response.base.Response;
+import com.kaltura.client.utils.response.base.ResponseElement;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Writes all the items of a list action to a file, as JSON lines or as CSV columns, e.g.
+ * <pre>
+ * ListExporter&lt;MediaEntry&gt; exporter = MediaService.list(filter).export(client, APIOkRequestsExecutor.getExecutor());
+ * exporter.setKey("createdAt").setCheckpoint(new File("entries.csv.checkpoint"));
+ * long count = exporter.toCsv(new File("entries.csv"), "id", "name", "createdAt");
+ * </pre>
+ * Each page is read from the response body as it is received and its objects are written to the
+ * file one at a time, without building them, so the memory doesn't depend on the page size nor
+ * on the size of the listing. Queues that don't stream responses pass the whole body instead.
+ * <p>
+ * Pages are requested by index, or, when a key is set, by ranges of that key as by
+ * {@link ListScanner}, which avoids the server's limit on deep page indexes. With a checkpoint
+ * file, the progress is saved after every page and an interrupted export resumes from the last
+ * saved page, the file is first truncated to the items written by then. The checkpoint is
+ * deleted once the export completed.
+ */
+public class ListExporter<T> {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int DefaultPageSize = 500;
+    private static final int BufferSize = 64 * 1024;
+
+    private final ListResponseRequestBuilder<T, ?, ?> request;
+    private final Client client;
+    private final RequestQueue queue;
+    private int pageSize;
+    private String key;
+    private File checkpoint;
+
+    /**
+     * @param request list request, its pager sets the default page size
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     */
+    public ListExporter(ListResponseRequestBuilder<T, ?, ?> request, Client client, RequestQueue queue) {
+        this.request = request;
+        this.client = client;
+        this.queue = queue;
+
+        Object size = ListPageRequestBuilder.copyObject(request, "pager").get("pageSize");
+        pageSize = size instanceof Number ? ((Number) size).intValue() : DefaultPageSize;
+    }
+
+    /**
+     * @param pageSize number of items requested per page, default is the list request's pager size, or 500
+     * @return this exporter
+     */
+    public ListExporter<T> setPageSize(int pageSize) {
+        if(pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param key name of a monotonic integer property, e.g. createdAt, to request the pages by ranges
+     *            of it through the filter's <code>&lt;key&gt;GreaterThanOrEqual</code>, null to request
+     *            them by page index. The filter's orderBy is then replaced by the key.
+     * @return this exporter
+     */
+    public ListExporter<T> setKey(String key) {
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * @param checkpoint file the progress is saved to and resumed from, null to always export from the start
+     * @return this exporter
+     */
+    public ListExporter<T> setCheckpoint(File checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Writes each object as a line of compact JSON, with the properties returned by the server.
+     *
+     * @param file output file
+     * @return number of items in the file
+     * @throws APIException if a page failed, the file keeps the items of the previous pages
+     * @throws IOException if the file or the checkpoint could not be written
+     * @throws InterruptedException if interrupted while waiting for a page, the page is cancelled
+     * @throws IllegalStateException if called on the thread the queue delivers completions on
+     */
+    public long toJsonLines(File file) throws APIException, IOException, InterruptedException {
+        return export(file, null);
+    }
+
+    /**
+     * Writes a header line and a line per object with the values of the given properties. Object
+     * and array values are written as their JSON, absent and null values are left empty.
+     *
+     * @param file output file
+     * @param columns names of the exported properties
+     * @return number of items in the file
+     * @throws APIException if a page failed, the file keeps the items of the previous pages
+     * @throws IOException if the file or the checkpoint could not be written
+     * @throws InterruptedException if interrupted while waiting for a page, the page is cancelled
+     * @throws IllegalStateException if called on the thread the queue delivers completions on
+     */
+    public long toCsv(File file, String... columns) throws APIException, IOException, InterruptedException {
+        if(columns.length == 0) {
+            throw new IllegalArgumentException("No columns selected");
+        }
+        return export(file, columns);
+    }
+
+    private long export(File file, String[] columns) throws APIException, IOException, InterruptedException {
+        if(queue instanceof APIOkRequestsExecutor && ((APIOkRequestsExecutor) queue).isDeliveryThread()) {
+            throw new IllegalStateException("Pages can't be waited for on the thread their completions are delivered on");
+        }
+
+        String format = columns == null ? "json" : "csv:" + join(columns);
+        Properties state = readCheckpoint();
+        if(state != null && (!format.equals(state.getProperty("format")) || !String.valueOf(key).equals(state.getProperty("key"))
+                || (key == null && !String.valueOf(pageSize).equals(state.getProperty("pageSize"))))) {
+            throw new IOException("Checkpoint " + checkpoint + " belongs to another export");
+        }
+
+        Params requestParams = ListPageRequestBuilder.copyParams(request);
+        Params filter = ListPageRequestBuilder.copyObject(requestParams, "filter");
+        long size = 0;
+        long items = 0;
+        int pageIndex = 1;
+        boolean singleKey = false;
+        Long from = null;
+        if(key != null && filter.get(key + "GreaterThanOrEqual") instanceof Number) {
+            from = ((Number) filter.get(key + "GreaterThanOrEqual")).longValue();
+        }
+        if(state != null) {
+            size = Long.parseLong(state.getProperty("size"));
+            items = Long.parseLong(state.getProperty("items"));
+            pageIndex = Integer.parseInt(state.getProperty("pageIndex"));
+            singleKey = Boolean.parseBoolean(state.getProperty("singleKey"));
+            from = state.getProperty("from") != null ? Long.valueOf(state.getProperty("from")) : null;
+        }
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        ChannelOutput output = new ChannelOutput(randomAccessFile.getChannel());
+        try {
+            output.truncate(size);
+            if(size == 0 && columns != null) {
+                output.write(csvLine(columns));
+            }
+
+            while(true) {
+                ExportPage page = new ExportPage(output, columns, requestParams, pageFilter(filter, from, singleKey), pageIndex);
+                String requestId = queue.queue(page.build(client));
+                try {
+                    page.completed.await();
+                } catch (InterruptedException e) {
+                    // the page may still be writing to the file from the response thread
+                    page.cancel(requestId);
+                    output.truncate(page.start);
+                    throw e;
+                }
+
+                if(page.writeError != null) {
+                    output.truncate(page.start);
+                    throw page.writeError;
+                }
+                if(page.response == null || page.response.error != null) {
+                    output.truncate(page.start);
+                    throw page.response != null ? page.response.error : new APIException(FailureStep.OnRequest, "Page " + pageIndex + " was not completed");
+                }
+
+                items += page.count;
+                boolean full = page.count >= pageSize;
+                boolean done;
+                if(key == null) {
+                    int totalCount = page.response.results.getTotalCount();
+                    done = !full || (totalCount >= 0 && (long) pageIndex * pageSize >= totalCount);
+                    pageIndex++;
+                }
+                else if(singleKey) {
+                    // the next pages of the same key, then the keys after it
+                    done = false;
+                    if(full) {
+                        pageIndex++;
+                    }
+                    else {
+                        singleKey = false;
+                        pageIndex = 1;
+                        done = from == Long.MAX_VALUE;
+                        from++;
+                    }
+                }
+                else {
+                    done = !full;
+                    if(full && page.lastKeyStart == page.start) {
+                        // the whole page has the same key
+                        singleKey = true;
+                        pageIndex = 2;
+                    }
+                    else if(full) {
+                        // the items of the last key may continue on the next page, they are written with it
+                        output.truncate(page.lastKeyStart);
+                        items -= page.lastKeyCount;
+                    }
+                    from = page.lastKey;
+                }
+
+                size = output.sync();
+                if(done) {
+                    break;
+                }
+                writeCheckpoint(format, size, items, pageIndex, singleKey, from);
+            }
+        }
+        finally {
+            try {
+                output.flush();
+            }
+            finally {
+                randomAccessFile.close();
+            }
+        }
+
+        if(checkpoint != null && checkpoint.exists() && !checkpoint.delete()) {
+            throw new IOException("Failed to delete checkpoint " + checkpoint);
+        }
+        return items;
+    }
+
+    private Params pageFilter(Params filter, Long from, boolean singleKey) {
+        if(key == null) {
+            return null;
+        }
+        Params pageFilter = new Params();
+        pageFilter.putAll(filter);
+        if(from != null) {
+            pageFilter.add(key + "GreaterThanOrEqual", from);
+        }
+        if(singleKey) {
+            pageFilter.add(key + "LessThanOrEqual", from);
+        }
+        pageFilter.add("orderBy", "+" + key);
+        return pageFilter;
+    }
+
+    private Params pager(Params requestParams, int pageIndex) {
+        Params pager = ListPageRequestBuilder.copyObject(requestParams, "pager");
+        pager.add("objectType", "KalturaFilterPager");
+        pager.add("pageSize", pageSize);
+        pager.add("pageIndex", pageIndex);
+        return pager;
+    }
+
+    private Properties readCheckpoint() throws IOException {
+        if(checkpoint == null || !checkpoint.exists()) {
+            return null;
+        }
+        Properties state = new Properties();
+        InputStream in = new FileInputStream(checkpoint);
+        try {
+            state.load(in);
+        }
+        finally {
+            in.close();
+        }
+        return state;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file first, so a crash leaves the previous one whole.
+     */
+    private void writeCheckpoint(String format, long size, long items, int pageIndex, boolean singleKey, Long from) throws IOException {
+        if(checkpoint == null) {
+            return;
+        }
+        Properties state = new Properties();
+        state.setProperty("format", format);
+        state.setProperty("key", String.valueOf(key));
+        state.setProperty("pageSize", String.valueOf(pageSize));
+        state.setProperty("size", String.valueOf(size));
+        state.setProperty("items", String.valueOf(items));
+        state.setProperty("pageIndex", String.valueOf(pageIndex));
+        state.setProperty("singleKey", String.valueOf(singleKey));
+        if(from != null) {
+            state.setProperty("from", String.valueOf(from));
+        }
+
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            state.store(out, null);
+            out.getFD().sync();
+        }
+        finally {
+            out.close();
+        }
+        if(!temp.renameTo(checkpoint) && !(checkpoint.delete() && temp.renameTo(checkpoint))) {
+            throw new IOException("Failed to write checkpoint " + checkpoint);
+        }
+    }
+
+    private static String join(String[] values) {
+        StringBuilder joined = new StringBuilder();
+        for(String value : values) {
+            if(joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    private static String csvLine(String[] values) {
+        StringBuilder line = new StringBuilder(values.length * 16);
+        for(int column = 0; column < values.length; column++) {
+            if(column > 0) {
+                line.append(',');
+            }
+            String value = values[column];
+            if(value == null) {
+                continue;
+            }
+            if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                line.append(value);
+            }
+            else {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+        return line.append("\r\n").toString();
+    }
+
+    /**
+     * Buffered writes to the file channel, keeping the position of the written bytes.
+     */
+    private static class ChannelOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BufferSize);
+        private long position;
+
+        ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return position;
+        }
+
+        void write(String text) throws IOException {
+            byte[] bytes = text.getBytes(UTF8);
+            if(bytes.length > buffer.remaining()) {
+                flush();
+            }
+            if(bytes.length > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while(large.hasRemaining()) {
+                    channel.write(large);
+                }
+            }
+            else {
+                buffer.put(bytes);
+            }
+            position += bytes.length;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void truncate(long size) throws IOException {
+            flush();
+            if(channel.size() > size) {
+                channel.truncate(size);
+            }
+            channel.position(size);
+            position = size;
+        }
+
+        /**
+         * @return the size of the file, once written to the device
+         */
+        long sync() throws IOException {
+            flush();
+            channel.force(false);
+            return position;
+        }
+    }
+
+    /**
+     * Request of one page, writing the listed objects to the output as they are read.
+     */
+    private class ExportPage extends ListPageRequestBuilder<T> {
+
+        private final ChannelOutput output;
+        private final String[] columns;
+        private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final long start;
+
+        private Response<ListResponse<T>> response;
+        private IOException writeError;
+        private int count = 0;
+        private Long itemKey;
+        private long lastKey;
+        private long lastKeyStart;
+        private int lastKeyCount = 0;
+        private boolean writing = false;
+        private boolean cancelled = false;
+
+        ExportPage(ChannelOutput output, String[] columns, Params requestParams, Params filter, int pageIndex) {
+            super(request, requestParams, filter, pager(requestParams, pageIndex), null);
+            this.output = output;
+            this.columns = columns;
+            if(columns != null) {
+                for(int column = 0; column < columns.length; column++) {
+                    columnIndexes.put(columns[column], column);
+                }
+            }
+            start = output.position();
+            lastKeyStart = start;
+        }
+
+        @Override
+        protected boolean isStreaming() {
+            return true;
+        }
+
+        @Override
+        protected Response<ListResponse<T>> parseResponse(ResponseElement response, Reader body, ConnectionConfiguration config, StreamingRequestElement.Delivery delivery) {
+            try {
+                return new Response<ListResponse<T>>(write(body), null);
+            } catch (APIException e) {
+                return new Response<ListResponse<T>>(null, e);
+            }
+        }
+
+        @Override
+        protected Object parse(String response) throws APIException {
+            return write(new StringReader(response));
+        }
+
+        @Override
+        protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+            return write(new StringReader(response));
+        }
+
+        @Override
+        public void onComplete(Response<ListResponse<T>> response) {
+            this.response = response;
+            completed.countDown();
+        }
+
+        /**
+         * Stops the page from writing to the output and waits for a write in progress to end.
+         *
+         * @param requestId id of the queued page request, null if it has none
+         */
+        void cancel(String requestId) {
+            synchronized(this) {
+                cancelled = true;
+            }
+            if(requestId != null) {
+                queue.cancelRequest(requestId);
+            }
+
+            boolean interrupted = false;
+            synchronized(this) {
+                while(writing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private ListResponse<T> write(Reader body) throws APIException {
+            synchronized(this) {
+                if(cancelled) {
+                    throw new APIException(FailureStep.OnResponse, "Page was cancelled");
+                }
+                writing = true;
+            }
+
+            ListResponse<T> list = new ListResponse<T>();
+            JsonReader reader = new JsonReader(body);
+            reader.setLenient(true);
+            try {
+                readList(reader, list);
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                // failures to write the file are kept on writeError and thrown as is by the export
+                throw new APIException(FailureStep.OnResponse, "Failed to read response: " + e.getMessage());
+            } finally {
+                synchronized(this) {
+                    writing = false;
+                    notifyAll();
+                }
+            }
+            return list;
+        }
+
+        /**
+         * Reads a list response, possibly wrapped in a result object, other properties are kept to find an error.
+         */
+        private void readList(JsonReader reader, ListResponse<T> list) throws IOException, APIException {
+            JsonObject other = new JsonObject();
+            reader.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                if(name.equals("result") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readList(reader, list);
+                }
+                else if(name.equals("objects") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while(reader.hasNext()) {
+                        writeItem(reader);
+                    }
+                    reader.endArray();
+                }
+                else if(name.equals("totalCount") && reader.peek() == JsonToken.NUMBER) {
+                    list.setTotalCount(reader.nextInt());
+                }
+                else {
+                    other.add(name, new JsonParser().parse(reader));
+                }
+            }
+            reader.endObject();
+
+            JsonElement error = other.get("error");
+            if(error != null && error.isJsonObject() && error.getAsJsonObject().has("objectType")) {
+                other = error.getAsJsonObject();
+            }
+            if(other.has("objectType")) {
+                APIException exception = GsonParser.parseException(other.toString());
+                if(exception != null) {
+                    throw exception;
+                }
+            }
+        }
+
+        private void writeItem(JsonReader reader) throws IOException, APIException {
+            if(reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return;
+            }
+
+            if(isCancelled()) {
+                throw new APIException(FailureStep.OnResponse, "Page was cancelled");
+            }
+
+            long itemStart = output.position();
+            itemKey = null;
+            String line = columns == null ? readJsonLine(reader) : readCsvLine(reader);
+            try {
+                output.write(line);
+            } catch (IOException e) {
+                writeError = e;
+                throw e;
+            }
+            count++;
+
+            if(key == null) {
+                return;
+            }
+            if(itemKey == null) {
+                throw new APIException(FailureStep.OnResponse, "Listed object has no " + key);
+            }
+            if(count == 1 || itemKey != lastKey) {
+                lastKey = itemKey;
+                lastKeyStart = itemStart;
+                lastKeyCount = 0;
+            }
+            lastKeyCount++;
+        }
+
+        private String readJsonLine(JsonReader reader) throws IOException {
+            StringWriter line = new StringWriter(512);
+            JsonWriter writer = new JsonWriter(line);
+            writer.setSerializeNulls(true);
+            reader.beginObject();
+            writer.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                writer.name(name);
+                if(name.equals(key) && reader.peek() == JsonToken.NUMBER) {
+                    String number = reader.nextString();
+                    itemKey = new BigDecimal(number).longValue();
+                    writer.jsonValue(number);
+                }
+                else {
+                    copy(reader, writer);
+                }
+            }
+            reader.endObject();
+            writer.endObject();
+            writer.flush();
+            return line.append('\n').toString();
+        }
+
+        private String readCsvLine(JsonReader reader) throws IOException {
+            String[] values = new String[columns.length];
+            reader.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                Integer column = columnIndexes.get(name);
+                boolean isKey = name.equals(key);
+                if((column == null && !isKey) || reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                JsonToken token = reader.peek();
+                String value = token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY ? GsonParser.readRaw(reader) : GsonParser.readString(reader);
+                if(isKey && token == JsonToken.NUMBER) {
+                    itemKey = new BigDecimal(value).longValue();
+                }
+                if(column != null) {
+                    values[column] = value;
+                }
+            }
+            reader.endObject();
+            return csvLine(values);
+        }
+
+        private void copy(JsonReader reader, JsonWriter writer) throws IOException {
+            switch(reader.peek()) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    writer.beginArray();
+                    while(reader.hasNext()) {
+                        copy(reader, writer);
+                    }
+                    reader.endArray();
+                    writer.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    writer.beginObject();
+                    while(reader.hasNext()) {
+                        writer.name(reader.nextName());
+                        copy(reader, writer);
+                    }
+                    reader.endObject();
+                    writer.endObject();
+                    break;
+                case BOOLEAN:
+                    writer.value(reader.nextBoolean());
+                    break;
+                case NUMBER:
+                    // keeps the original digits
+                    writer.jsonValue(reader.nextString());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    writer.nullValue();
+                    break;
+                default:
+                    writer.value(reader.nextString());
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.Params;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.types.ObjectBase;
+import com.kaltura.client.utils.response.OnCompletion;
+import com.kaltura.client.utils.response.base.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request of one page of a list request, with its own filter and pager. It is parsed by the
+ * list request and completed to the given completion, the list request is not changed.
+ * <p>
+ * The list request's params hold its filter and other objects as they are, pages are sent
+ * with a copy of them, see {@link #copyParams(ListResponseRequestBuilder)}, so changes made
+ * to those objects after the listing started don't apply to its later pages.
+ */
+class ListPageRequestBuilder<T> extends BaseRequestBuilder<ListResponse<T>, ListPageRequestBuilder<T>> {
+
+    private final ListResponseRequestBuilder<T, ?, ?> request;
+
+    /**
+     * @param request list request
+     * @param requestParams copy of the list request's params, see {@link #copyParams(ListResponseRequestBuilder)}
+     * @param filter filter params, null to send the list request's filter
+     * @param pager pager params
+     * @param onCompletion completion of the page
+     */
+    ListPageRequestBuilder(ListResponseRequestBuilder<T, ?, ?> request, Params requestParams, Params filter, Params pager, OnCompletion<Response<ListResponse<T>>> onCompletion) {
+        super(null);
+        this.request = request;
+        params.putAll(requestParams);
+        if(filter != null) {
+            params.add("filter", filter);
+        }
+        params.add("pager", pager);
+        headers = request.headers;
+        this.onCompletion = onCompletion;
+    }
+
+    /**
+     * Copies an object parameter of the list request, e.g. its filter or pager.
+     *
+     * @param request list request
+     * @param name parameter name
+     * @return a copy of the object's params, empty if the parameter is not set
+     */
+    static Params copyObject(ListResponseRequestBuilder<?, ?, ?> request, String name) {
+        return copyObject(request.params, name);
+    }
+
+    /**
+     * @param params params of a list request, or a copy of them
+     * @param name parameter name
+     * @return a copy of the object's params, empty if the parameter is not set
+     */
+    static Params copyObject(Params params, String name) {
+        Object value = copy(params.get(name));
+        return value instanceof Params ? (Params) value : new Params();
+    }
+
+    /**
+     * Copies the params of the list request, objects are copied as their params, at any depth.
+     *
+     * @param request list request
+     * @return params that don't refer to the request's objects, lists or maps
+     */
+    static Params copyParams(ListResponseRequestBuilder<?, ?, ?> request) {
+        return (Params) copy(request.params);
+    }
+
+    private static Object copy(Object value) {
+        if(value instanceof ObjectBase) {
+            value = ((ObjectBase) value).toParams();
+        }
+        if(value instanceof Map) {
+            Params params = new Params();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                params.put(String.valueOf(entry.getKey()), copy(entry.getValue()));
+            }
+            return params;
+        }
+        if(value instanceof List) {
+            List<Object> list = new ArrayList<Object>();
+            for(Object item : (List<?>) value) {
+                list.add(copy(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    @Override
+    protected String getUrlTail() {
+        return request.getUrlTail();
+    }
+
+    @Override
+    public String getTag() {
+        return request.getTag();
+    }
+
+    @Override
+    protected Object parse(String response) throws APIException {
+        return request.parse(response);
+    }
+
+    @Override
+    protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+        return request.parse(response, config);
+    }
+}
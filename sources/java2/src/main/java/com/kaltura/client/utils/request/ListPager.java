@@ -0,0 +1,318 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.APIOkRequestsExecutor;
+import com.kaltura.client.Client;
+import com.kaltura.client.Params;
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.utils.response.OnCompletion;
+import com.kaltura.client.utils.response.base.Response;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Iterates over all the items of a list action, page after page, e.g.
+ * <pre>
+ * ListPager&lt;MediaEntry&gt; entries = MediaService.list(filter).pages(client, APIOkRequestsExecutor.getExecutor()).setPageSize(500).setPrefetch(2);
+ * for(MediaEntry entry : entries) {
+ *     ...
+ * }
+ * </pre>
+ * The next pages are queued while the current one is consumed, so the consumer waits for the
+ * network only when it is faster than the server. Iteration stops after a page shorter than the
+ * page size, or once the total count of the list was reached.
+ * <p>
+ * Each page is sent with the list builder's parameters, and its filter and pager as they were
+ * when the iteration started, the builder itself is not changed. Pages are fetched by index, so
+ * items added or removed while iterating may be skipped or repeated.
+ * <p>
+ * Iterating blocks until the pages are received, so it must not run where their completions are
+ * delivered: in a completion of the same executor, or on Android's main thread with
+ * <code>AndroidAPIRequestsExecutor.getExecutor()</code>. The iterator throws
+ * {@link IllegalStateException} there instead of waiting forever.
+ */
+public class ListPager<T> implements Iterable<T> {
+
+    /**
+     * Thrown by the iterator when a page failed.
+     */
+    @SuppressWarnings("serial")
+    public static class PageException extends RuntimeException {
+
+        private final int pageIndex;
+
+        PageException(int pageIndex, APIException cause) {
+            super("Failed to list page " + pageIndex + ": " + cause.getMessage(), cause);
+            this.pageIndex = pageIndex;
+        }
+
+        public int getPageIndex() {
+            return pageIndex;
+        }
+
+        @Override
+        public synchronized APIException getCause() {
+            return (APIException) super.getCause();
+        }
+    }
+
+    private static final int DefaultPageSize = 500;
+
+    private final ListResponseRequestBuilder<T, ?, ?> request;
+    private final Client client;
+    private final RequestQueue queue;
+    private int pageSize;
+    private int firstPage = 1;
+    private int prefetch = 1;
+
+    /**
+     * @param request list request, its pager sets the default page size and first page
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     */
+    public ListPager(ListResponseRequestBuilder<T, ?, ?> request, Client client, RequestQueue queue) {
+        this.request = request;
+        this.client = client;
+        this.queue = queue;
+
+        Params pager = getPager();
+        pageSize = pager.get("pageSize") instanceof Number ? ((Number) pager.get("pageSize")).intValue() : DefaultPageSize;
+        if(pager.get("pageIndex") instanceof Number) {
+            firstPage = Math.max(1, ((Number) pager.get("pageIndex")).intValue());
+        }
+    }
+
+    /**
+     * @param pageSize number of items requested per page, default is the list request's pager size, or 500
+     * @return this pager
+     */
+    public ListPager<T> setPageSize(int pageSize) {
+        if(pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param prefetch number of pages requested ahead of the page being consumed, 0 requests each
+     *                 page only when it is needed, default is 1
+     * @return this pager
+     */
+    public ListPager<T> setPrefetch(int prefetch) {
+        if(prefetch < 0) {
+            throw new IllegalArgumentException("Prefetch must not be negative");
+        }
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    /**
+     * Starts the iteration, every iterator sends its own requests.
+     */
+    @Override
+    public Pages iterator() {
+        return new Pages();
+    }
+
+    private Params getPager() {
+        Params pager = ListPageRequestBuilder.copyObject(request, "pager");
+        if(pager.isEmpty()) {
+            pager.add("objectType", "KalturaFilterPager");
+        }
+        return pager;
+    }
+
+    /**
+     * Iterator over the items, blocks until the page of the next item was received.
+     * <p>
+     * A failed page is thrown as {@link PageException}. Closing the iterator, from any thread,
+     * cancels the pages requested ahead and ends the iteration, an iterator waiting for a page
+     * throws {@link CancellationException}, as it does when its thread is interrupted.
+     */
+    public class Pages implements Iterator<T>, Closeable {
+
+        private final Map<Integer, Response<ListResponse<T>>> received = new HashMap<Integer, Response<ListResponse<T>>>();
+        private final Map<Integer, String> pending = new HashMap<Integer, String>();
+        private final Params requestParams = ListPageRequestBuilder.copyParams(request);
+        private final Params pager = getPager();
+        private int nextPage = firstPage;
+        private int lastPage = Integer.MAX_VALUE;
+        private int currentPage = firstPage - 1;
+        private int totalCount = Integer.MIN_VALUE;
+        private Iterator<T> items = Collections.<T>emptyList().iterator();
+        private boolean closed = false;
+
+        Pages() {
+            pager.add("pageSize", pageSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!items.hasNext()) {
+                if(currentPage >= lastPage || isClosed()) {
+                    return false;
+                }
+                currentPage++;
+                List<T> objects = take(currentPage);
+                if(objects != null) {
+                    items = objects.iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return items.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return total count of the list, as returned with the last page received, Integer.MIN_VALUE before the first page
+         */
+        public synchronized int getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return index of the page the last item was taken from
+         */
+        public synchronized int getPageIndex() {
+            return currentPage;
+        }
+
+        /**
+         * Cancels the pages requested ahead and ends the iteration.
+         */
+        @Override
+        public void close() {
+            synchronized(this) {
+                if(closed) {
+                    return;
+                }
+                closed = true;
+                notifyAll();
+            }
+            cancelAfter(firstPage - 1);
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Sends the missing pages up to the prefetch depth and waits for the given one.
+         */
+        private List<T> take(int page) {
+            if(queue instanceof APIOkRequestsExecutor && ((APIOkRequestsExecutor) queue).isDeliveryThread()) {
+                close();
+                throw new IllegalStateException("Pages can't be waited for on the thread their completions are delivered on");
+            }
+
+            Response<ListResponse<T>> response;
+            synchronized(this) {
+                while(nextPage <= lastPage && nextPage <= page + prefetch) {
+                    send(nextPage++);
+                }
+                try {
+                    while(!closed && !received.containsKey(page)) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                }
+                if(closed) {
+                    throw new CancellationException("Listing was closed");
+                }
+                response = received.remove(page);
+                pending.remove(page);
+            }
+
+            if(response.error != null) {
+                close();
+                throw new PageException(page, response.error);
+            }
+
+            List<T> objects = response.results != null ? response.results.getObjects() : null;
+            int size = objects != null ? objects.size() : 0;
+            int end = Integer.MAX_VALUE;
+            synchronized(this) {
+                if(response.results != null && response.results.getTotalCount() >= 0) {
+                    totalCount = response.results.getTotalCount();
+                    end = Math.max(page, (totalCount + pageSize - 1) / pageSize);
+                }
+                if(size < pageSize) {
+                    end = page;
+                }
+                if(end < lastPage) {
+                    lastPage = end;
+                }
+            }
+            if(end != Integer.MAX_VALUE) {
+                cancelAfter(end);
+            }
+            return objects;
+        }
+
+        private void send(final int page) {
+            Params pageParams = new Params();
+            pageParams.putAll(pager);
+            pageParams.add("pageIndex", page);
+
+            OnCompletion<Response<ListResponse<T>>> onCompletion = new OnCompletion<Response<ListResponse<T>>>() {
+                @Override
+                public void onComplete(Response<ListResponse<T>> response) {
+                    received(page, response);
+                }
+            };
+            String id = queue.queue(new ListPageRequestBuilder<T>(request, requestParams, null, pageParams, onCompletion).build(client));
+            if(id != null && !received.containsKey(page)) {
+                pending.put(page, id);
+            }
+        }
+
+        private synchronized void received(int page, Response<ListResponse<T>> response) {
+            if(closed || page > lastPage) {
+                return;
+            }
+            received.put(page, response);
+            notifyAll();
+        }
+
+        private void cancelAfter(int page) {
+            List<String> ids = new ArrayList<String>();
+            synchronized(this) {
+                Iterator<Map.Entry<Integer, String>> iterator = pending.entrySet().iterator();
+                while(iterator.hasNext()) {
+                    Map.Entry<Integer, String> entry = iterator.next();
+                    if(entry.getKey() > page) {
+                        ids.add(entry.getValue());
+                        received.remove(entry.getKey());
+                        iterator.remove();
+                    }
+                }
+            }
+            for(String id : ids) {
+                queue.cancelRequest(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.Client;
+import com.kaltura.client.Logger;
+import com.kaltura.client.Params;
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.utils.response.OnCompletion;
+import com.kaltura.client.utils.response.base.Response;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Publishes the items of a list action to subscribers that request them, pages are fetched only
+ * when the subscriber requested more items than were already received, e.g.
+ * <pre>
+ * MediaService.list(filter).publish(client, APIOkRequestsExecutor.getExecutor()).subscribe(new ListPublisher.Subscriber&lt;MediaEntry&gt;() {
+ *     private ListPublisher.Subscription subscription;
+ *
+ *     public void onSubscribe(ListPublisher.Subscription subscription) {
+ *         this.subscription = subscription;
+ *         subscription.request(100);
+ *     }
+ *
+ *     public void onNext(MediaEntry entry) {
+ *         ...
+ *         subscription.request(1);
+ *     }
+ *     ...
+ * });
+ * </pre>
+ * The interfaces have the methods of the reactive streams API, which the client can't depend on
+ * as it supports Java 7, so a subscriber of <code>java.util.concurrent.Flow</code> or
+ * <code>org.reactivestreams</code> is adapted by forwarding each method as is. At most one page
+ * is requested at a time and at most one page is held per subscription, whatever the demand.
+ * <p>
+ * Items are signaled in order and never concurrently, on the thread that requested them or on the
+ * queue's threads. Pages are fetched by index, as by {@link ListPager}.
+ */
+public class ListPublisher<T> {
+    private static final String TAG = "ListPublisher";
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable error);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+        /**
+         * @param count number of additional items to signal, positive
+         */
+        void request(long count);
+
+        /**
+         * Stops signaling items and cancels the page in flight.
+         */
+        void cancel();
+    }
+
+    private static final int DefaultPageSize = 500;
+
+    private final ListResponseRequestBuilder<T, ?, ?> request;
+    private final Client client;
+    private final RequestQueue queue;
+    private int pageSize;
+
+    /**
+     * @param request list request, its pager sets the default page size
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     */
+    public ListPublisher(ListResponseRequestBuilder<T, ?, ?> request, Client client, RequestQueue queue) {
+        this.request = request;
+        this.client = client;
+        this.queue = queue;
+
+        Object size = ListPageRequestBuilder.copyObject(request, "pager").get("pageSize");
+        pageSize = size instanceof Number ? ((Number) size).intValue() : DefaultPageSize;
+    }
+
+    /**
+     * @param pageSize number of items requested per page, default is the list request's pager size, or 500
+     * @return this publisher
+     */
+    public ListPublisher<T> setPageSize(int pageSize) {
+        if(pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Starts a listing for the subscriber, every subscription sends its own requests, from the first page.
+     *
+     * @param subscriber receives the items
+     */
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if(subscriber == null) {
+            throw new NullPointerException("subscriber can't be null");
+        }
+        ListSubscription subscription = new ListSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class ListSubscription implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final Params requestParams = ListPageRequestBuilder.copyParams(request);
+        private final Params pager = ListPageRequestBuilder.copyObject(request, "pager");
+        private final ArrayDeque<T> received = new ArrayDeque<T>();
+        private long demand = 0;
+        private int nextPage = 1;
+        private boolean fetching = false;
+        private boolean lastPage = false;
+        private String requestId;
+        private Throwable error;
+        private boolean done = false;
+
+        // signals run in a single loop, calls made while it runs, e.g. request from onNext, are picked up by it
+        private boolean draining = false;
+        private boolean missed = false;
+
+        ListSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            pager.add("objectType", "KalturaFilterPager");
+            pager.add("pageSize", pageSize);
+        }
+
+        @Override
+        public void request(long count) {
+            synchronized(this) {
+                if(count <= 0) {
+                    if(error == null) {
+                        error = new IllegalArgumentException("Requested items count must be positive, got " + count);
+                    }
+                }
+                else {
+                    demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            String id;
+            synchronized(this) {
+                if(done) {
+                    return;
+                }
+                done = true;
+                received.clear();
+                id = requestId;
+            }
+            if(id != null) {
+                queue.cancelRequest(id);
+            }
+        }
+
+        private void send(final int page) {
+            Params pageParams = new Params();
+            pageParams.putAll(pager);
+            pageParams.add("pageIndex", page);
+
+            OnCompletion<Response<ListResponse<T>>> onCompletion = new OnCompletion<Response<ListResponse<T>>>() {
+                @Override
+                public void onComplete(Response<ListResponse<T>> response) {
+                    received(page, response);
+                }
+            };
+            String id = queue.queue(new ListPageRequestBuilder<T>(request, requestParams, null, pageParams, onCompletion).build(client));
+            synchronized(this) {
+                if(fetching && nextPage == page + 1) {
+                    requestId = id;
+                }
+            }
+        }
+
+        private void received(int page, Response<ListResponse<T>> response) {
+            synchronized(this) {
+                fetching = false;
+                requestId = null;
+                if(done) {
+                    return;
+                }
+                if(response.error != null) {
+                    error = response.error;
+                }
+                else {
+                    List<T> objects = response.results != null ? response.results.getObjects() : null;
+                    int size = objects != null ? objects.size() : 0;
+                    if(objects != null) {
+                        received.addAll(objects);
+                    }
+                    int totalCount = response.results != null ? response.results.getTotalCount() : Integer.MIN_VALUE;
+                    lastPage = size < pageSize || (totalCount >= 0 && (long) page * pageSize >= totalCount);
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            synchronized(this) {
+                if(draining) {
+                    missed = true;
+                    return;
+                }
+                draining = true;
+            }
+
+            while(true) {
+                T item = null;
+                Throwable failure = null;
+                boolean complete = false;
+                int fetchPage = 0;
+                synchronized(this) {
+                    if(done) {
+                        draining = false;
+                        return;
+                    }
+                    if(error != null) {
+                        failure = error;
+                        done = true;
+                    }
+                    else if(demand > 0 && !received.isEmpty()) {
+                        item = received.poll();
+                        if(demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                    }
+                    else if(received.isEmpty() && lastPage) {
+                        complete = true;
+                        done = true;
+                    }
+
+                    // the next page is fetched once the received items don't cover the demand
+                    if(!done && !fetching && !lastPage && demand > received.size()) {
+                        fetching = true;
+                        fetchPage = nextPage++;
+                    }
+
+                    if(item == null && failure == null && !complete && fetchPage == 0) {
+                        if(!missed) {
+                            draining = false;
+                            return;
+                        }
+                        missed = false;
+                        continue;
+                    }
+                }
+
+                if(fetchPage > 0) {
+                    send(fetchPage);
+                }
+                try {
+                    if(item != null) {
+                        subscriber.onNext(item);
+                    }
+                    else if(failure != null) {
+                        subscriber.onError(failure);
+                    }
+                    else if(complete) {
+                        subscriber.onComplete();
+                    }
+                } catch (RuntimeException e) {
+                    Logger.getLogger(TAG).error("subscriber failed, listing is cancelled. ", e);
+                    cancel();
+                }
+            }
+        }
+    }
+}
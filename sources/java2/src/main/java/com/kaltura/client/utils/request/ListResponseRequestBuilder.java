@@ -1,6 +1,10 @@
 package com.kaltura.client.utils.request;
 
+import com.google.gson.JsonElement;
+import com.kaltura.client.Client;
+import com.kaltura.client.RequestQueue;
 import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ColumnarList;
 import com.kaltura.client.types.ListResponse;
 import com.kaltura.client.utils.GsonParser;
 
@@ -22,7 +26,80 @@ public abstract class ListResponseRequestBuilder<RS, TK, S> extends RequestBuild
     }
 
     protected Object parse(String response) throws APIException {
-    	return GsonParser.parseListResponse(response, type);
+    	return parse(response, null);
+    }
+
+    @Override
+    protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+    	int parallelThreshold = ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config);
+    	return GsonParser.parseListResponse(response, type, parallelThreshold);
+    }
+
+    /**
+     * Parses the listed objects as the raw type, rather than by the list's objectType.
+     */
+    @Override
+    protected Object parseItem(JsonElement result, ConnectionConfiguration config) throws APIException {
+    	int parallelThreshold = ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config);
+    	return GsonParser.parseListResponse(result, type, parallelThreshold);
+    }
+
+    /**
+     * Returns a request for the same page that decodes only the selected properties of the
+     * listed objects into columns, instead of an object per item, for bulk reads of many items.
+     *
+     * @param schema selected properties
+     * @return columnar request, sharing the parameters of this builder
+     */
+    public ColumnarListRequestBuilder columns(ColumnarList.Schema schema) {
+    	return new ColumnarListRequestBuilder(this, schema);
+    }
+
+    /**
+     * Returns all the items of the list, fetched page after page while they are iterated.
+     *
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     * @return iterable over the items, sharing the parameters of this builder
+     */
+    public ListPager<RS> pages(Client client, RequestQueue queue) {
+    	return new ListPager<RS>(this, client, queue);
+    }
+
+    /**
+     * Returns a publisher of the items of the list, fetching pages as its subscribers request items.
+     *
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     * @return publisher, sharing the parameters of this builder
+     */
+    public ListPublisher<RS> publish(Client client, RequestQueue queue) {
+    	return new ListPublisher<RS>(this, client, queue);
+    }
+
+    /**
+     * Returns an exporter that writes all the items of the list to a file, as they are received.
+     *
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     * @return exporter, sharing the parameters of this builder
+     */
+    public ListExporter<RS> export(Client client, RequestQueue queue) {
+    	return new ListExporter<RS>(this, client, queue);
+    }
+
+    /**
+     * Returns a scanner that reads all the items of the list by ranges of a monotonic key,
+     * concurrently, rather than by page index.
+     *
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     * @param key name of the scanned key property, e.g. createdAt
+     * @param keyReader reads the key of a listed item
+     * @return scanner, sharing the parameters of this builder
+     */
+    public ListScanner<RS> scan(Client client, RequestQueue queue, String key, ListScanner.KeyReader<RS> keyReader) {
+    	return new ListScanner<RS>(this, client, queue, key, keyReader);
     }
 
 	@SuppressWarnings("unchecked")
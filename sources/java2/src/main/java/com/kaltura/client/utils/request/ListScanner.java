@@ -0,0 +1,380 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.APIOkRequestsExecutor;
+import com.kaltura.client.Client;
+import com.kaltura.client.Params;
+import com.kaltura.client.RequestQueue;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ListResponse;
+import com.kaltura.client.utils.response.OnCompletion;
+import com.kaltura.client.utils.response.base.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads all the items of a list action by ranges of a monotonic key, such as createdAt, updatedAt
+ * or an integer id, instead of by page index, e.g.
+ * <pre>
+ * ListScanner&lt;MediaEntry&gt; scanner = MediaService.list(filter).scan(client, APIOkRequestsExecutor.getExecutor(), "createdAt", new ListScanner.KeyReader&lt;MediaEntry&gt;() {
+ *     public long getKey(MediaEntry entry) {
+ *         return entry.getCreatedAt();
+ *     }
+ * });
+ * scanner.setParallelism(8).scan(new ListScanner.PageHandler&lt;MediaEntry&gt;() {
+ *     public void onPage(List&lt;MediaEntry&gt; entries) {
+ *         ...
+ *     }
+ * });
+ * </pre>
+ * The key range is split into partitions that are read concurrently. Each partition is read in
+ * key order, every page continues from the last key of the previous one through the filter's
+ * <code>&lt;key&gt;GreaterThanOrEqual</code> and <code>&lt;key&gt;LessThanOrEqual</code> properties,
+ * so pages are always requested at page index 1 and don't slow down, nor hit the server's limit,
+ * as deep page indexes do. When a partition completes, a partition with many items left is split
+ * and its upper half is read concurrently.
+ * <p>
+ * The filter's orderBy is replaced by the key, other filter properties apply as usual, and the
+ * filter's range of the key, if set, is the scanned range. Items whose key is changed during the
+ * scan may be skipped or read twice.
+ * <p>
+ * The scan blocks until all the pages are received, so, as with {@link ListPager}, it must not
+ * run in a completion of the same executor or on Android's main thread.
+ */
+public class ListScanner<T> {
+
+    /**
+     * Reads the scanned key of an item, must match the value the server filters and orders by.
+     */
+    public interface KeyReader<T> {
+        long getKey(T item);
+    }
+
+    /**
+     * Receives the items, one page at a time. Pages of a partition come in key order, pages of
+     * different partitions are interleaved. Called on the queue's threads, never concurrently.
+     */
+    public interface PageHandler<T> {
+        void onPage(List<T> items);
+    }
+
+    private static final int DefaultPageSize = 500;
+
+    private final ListResponseRequestBuilder<T, ?, ?> request;
+    private final Client client;
+    private final RequestQueue queue;
+    private final String key;
+    private final KeyReader<T> keyReader;
+    private int pageSize = DefaultPageSize;
+    private int parallelism = 4;
+    private int splitThreshold = -1;
+
+    /**
+     * @param request list request
+     * @param client client the pages are built with
+     * @param queue queue the pages are sent through
+     * @param key name of the scanned key property, e.g. createdAt
+     * @param keyReader reads the key of a listed item
+     */
+    public ListScanner(ListResponseRequestBuilder<T, ?, ?> request, Client client, RequestQueue queue, String key, KeyReader<T> keyReader) {
+        this.request = request;
+        this.client = client;
+        this.queue = queue;
+        this.key = key;
+        this.keyReader = keyReader;
+    }
+
+    /**
+     * @param pageSize number of items requested per page, default is 500
+     * @return this scanner
+     */
+    public ListScanner<T> setPageSize(int pageSize) {
+        if(pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param parallelism maximal number of partitions read concurrently, default is 4
+     * @return this scanner
+     */
+    public ListScanner<T> setParallelism(int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @param splitThreshold minimal number of items left in a partition to split it when another
+     *                       partition completed, default is 4 pages, negative value for the default
+     * @return this scanner
+     */
+    public ListScanner<T> setSplitThreshold(int splitThreshold) {
+        this.splitThreshold = splitThreshold;
+        return this;
+    }
+
+    /**
+     * Reads all the items, blocks until all the partitions completed.
+     *
+     * @param handler receives the items
+     * @throws APIException if a page failed, the pages in flight are cancelled
+     * @throws InterruptedException if interrupted while waiting, the pages in flight are cancelled
+     * @throws IllegalStateException if called on the thread the queue delivers completions on
+     */
+    public void scan(PageHandler<T> handler) throws APIException, InterruptedException {
+        if(queue instanceof APIOkRequestsExecutor && ((APIOkRequestsExecutor) queue).isDeliveryThread()) {
+            throw new IllegalStateException("Pages can't be waited for on the thread their completions are delivered on");
+        }
+
+        Params requestParams = ListPageRequestBuilder.copyParams(request);
+        Params filter = ListPageRequestBuilder.copyObject(requestParams, "filter");
+        Long from = filter.get(key + "GreaterThanOrEqual") instanceof Number ? ((Number) filter.get(key + "GreaterThanOrEqual")).longValue() : null;
+        Long to = filter.get(key + "LessThanOrEqual") instanceof Number ? ((Number) filter.get(key + "LessThanOrEqual")).longValue() : null;
+
+        // the range is read from the first and last items when the filter leaves it open
+        if(from == null) {
+            from = findKey(requestParams, filter, "+", Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE);
+        }
+        if(from != null && to == null) {
+            to = findKey(requestParams, filter, "-", from, Long.MAX_VALUE);
+        }
+        if(from == null || to == null || from > to) {
+            return;
+        }
+
+        new Scan(requestParams, filter, handler).run(from, to);
+    }
+
+    private Long findKey(Params requestParams, Params filter, String order, long from, long to) throws APIException {
+        @SuppressWarnings("unchecked")
+        Response<ListResponse<T>> response = (Response<ListResponse<T>>) queue.execute(newPage(requestParams, filter, order, from, to, 1, 1, null).build(client));
+        if(response.error != null) {
+            throw response.error;
+        }
+        List<T> objects = response.results != null ? response.results.getObjects() : null;
+        return objects != null && !objects.isEmpty() ? keyReader.getKey(objects.get(0)) : null;
+    }
+
+    private ListPageRequestBuilder<T> newPage(Params requestParams, Params filter, String order, long from, long to, int size, int index, OnCompletion<Response<ListResponse<T>>> onCompletion) {
+        Params rangeFilter = new Params();
+        rangeFilter.putAll(filter);
+        if(from != Long.MIN_VALUE) {
+            rangeFilter.add(key + "GreaterThanOrEqual", from);
+        }
+        if(to != Long.MAX_VALUE) {
+            rangeFilter.add(key + "LessThanOrEqual", to);
+        }
+        rangeFilter.add("orderBy", order + key);
+
+        Params pager = ListPageRequestBuilder.copyObject(requestParams, "pager");
+        pager.add("objectType", "KalturaFilterPager");
+        pager.add("pageSize", size);
+        pager.add("pageIndex", index);
+        return new ListPageRequestBuilder<T>(request, requestParams, rangeFilter, pager, onCompletion);
+    }
+
+    /**
+     * Range of the key read by one request at a time.
+     */
+    private static class Partition {
+        long from;
+        long to;
+
+        /**
+         * Set while the items of a single key, more than a page, are read by page index.
+         */
+        boolean singleKey = false;
+        int pageIndex = 1;
+
+        int sent = 0;
+        String requestId;
+
+        Partition(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private class Scan {
+
+        private final Params requestParams;
+        private final Params filter;
+        private final PageHandler<T> handler;
+        private final List<Partition> partitions = new ArrayList<Partition>();
+        private final int minItemsToSplit = splitThreshold >= 0 ? splitThreshold : pageSize * 4;
+        private int handling = 0;
+        private Throwable failure;
+
+        Scan(Params requestParams, Params filter, PageHandler<T> handler) {
+            this.requestParams = requestParams;
+            this.filter = filter;
+            this.handler = handler;
+        }
+
+        void run(long from, long to) throws APIException, InterruptedException {
+            List<Partition> initial = new ArrayList<Partition>();
+            long span = to - from;
+            int count = span < parallelism ? (int) span + 1 : parallelism;
+            long step = span / count + 1;
+            for(long partitionFrom = from; initial.size() < count; partitionFrom += step) {
+                long partitionTo = initial.size() == count - 1 ? to : partitionFrom + step - 1;
+                initial.add(new Partition(partitionFrom, partitionTo));
+            }
+            synchronized(this) {
+                partitions.addAll(initial);
+            }
+            for(Partition partition : initial) {
+                send(partition);
+            }
+
+            synchronized(this) {
+                try {
+                    while((failure == null && !partitions.isEmpty()) || handling > 0) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    failure = e;
+                    cancel();
+                    throw e;
+                }
+            }
+
+            if(failure instanceof APIException) {
+                throw (APIException) failure;
+            }
+            if(failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+        }
+
+        private void send(final Partition partition) {
+            long to = partition.singleKey ? partition.from : partition.to;
+            OnCompletion<Response<ListResponse<T>>> onCompletion = new OnCompletion<Response<ListResponse<T>>>() {
+                @Override
+                public void onComplete(Response<ListResponse<T>> response) {
+                    received(partition, response);
+                }
+            };
+
+            int sent;
+            synchronized(this) {
+                if(failure != null) {
+                    return;
+                }
+                sent = ++partition.sent;
+            }
+            String id = queue.queue(newPage(requestParams, filter, "+", partition.from, to, pageSize, partition.pageIndex, onCompletion).build(client));
+            synchronized(this) {
+                if(partition.sent == sent) {
+                    partition.requestId = id;
+                }
+            }
+        }
+
+        private void received(Partition partition, Response<ListResponse<T>> response) {
+            List<T> items;
+            List<Partition> next = new ArrayList<Partition>();
+            synchronized(this) {
+                if(failure != null) {
+                    return;
+                }
+                if(response.error != null) {
+                    fail(response.error);
+                    return;
+                }
+                handling++;
+
+                List<T> objects = response.results != null ? response.results.getObjects() : null;
+                items = objects != null ? objects : Collections.<T>emptyList();
+                boolean done = items.size() < pageSize;
+                if(partition.singleKey) {
+                    // the next pages of the same key, then the keys after it
+                    if(!done) {
+                        partition.pageIndex++;
+                    }
+                    else if(partition.from < partition.to) {
+                        partition.singleKey = false;
+                        partition.pageIndex = 1;
+                        partition.from++;
+                        done = false;
+                    }
+                }
+                else if(!done) {
+                    // the items of the last key may continue on the next page, they are read with it
+                    long last = keyReader.getKey(items.get(items.size() - 1));
+                    int end = items.size();
+                    while(end > 0 && keyReader.getKey(items.get(end - 1)) == last) {
+                        end--;
+                    }
+                    if(end == 0) {
+                        partition.singleKey = true;
+                        partition.pageIndex = 2;
+                    }
+                    else {
+                        items = items.subList(0, end);
+                    }
+                    partition.from = last;
+
+                    int left = response.results.getTotalCount() - items.size();
+                    if(!partition.singleKey && left > minItemsToSplit && partitions.size() < parallelism && partition.to - partition.from >= 2) {
+                        long middle = partition.from + (partition.to - partition.from) / 2;
+                        Partition upper = new Partition(middle + 1, partition.to);
+                        partition.to = middle;
+                        partitions.add(upper);
+                        next.add(upper);
+                    }
+                }
+
+                if(done) {
+                    partitions.remove(partition);
+                }
+                else {
+                    next.add(partition);
+                }
+            }
+
+            try {
+                if(!items.isEmpty()) {
+                    synchronized(handler) {
+                        handler.onPage(items);
+                    }
+                }
+                for(Partition nextPartition : next) {
+                    send(nextPartition);
+                }
+            } catch (RuntimeException e) {
+                synchronized(this) {
+                    fail(e);
+                }
+            } finally {
+                synchronized(this) {
+                    handling--;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void fail(Throwable error) {
+            if(failure == null) {
+                failure = error;
+                cancel();
+                notifyAll();
+            }
+        }
+
+        private void cancel() {
+            for(Partition partition : partitions) {
+                if(partition.requestId != null) {
+                    queue.cancelRequest(partition.requestId);
+                }
+            }
+            partitions.clear();
+        }
+    }
+}
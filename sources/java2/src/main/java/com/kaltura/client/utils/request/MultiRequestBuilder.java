@@ -1,18 +1,22 @@
 package com.kaltura.client.utils.request;
 
+import com.google.gson.JsonElement;
+import com.kaltura.client.Client;
 import com.kaltura.client.Files;
 import com.kaltura.client.Logger;
+import com.kaltura.client.Params;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.utils.GsonParser;
 import com.kaltura.client.utils.response.OnCompletion;
 import com.kaltura.client.utils.response.base.Response;
+import com.kaltura.client.utils.response.base.ResponseElement;
 
+import java.io.Reader;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 
 
@@ -25,12 +29,14 @@ public class MultiRequestBuilder extends BaseRequestBuilder<List<Object>, MultiR
     public static final String MULTIREQUEST_ACTION = "multirequest";
 
     /**
-     * Holds the requests contained within.
+     * Holds the requests contained within, in order.
      * will be used in case a completion was not provided on the multirequest itself
-     * and the completion for each inner request should be activated
+     * and the completion for each inner request should be activated.
+     * Requests are only appended, so the id of each request is its position + 1.
      */
-    private LinkedHashMap<String, RequestBuilder<?, ?, ?>> requests = new LinkedHashMap<>();
-    private int lastId = 0;
+    private final List<RequestBuilder<?, ?, ?>> requests = new ArrayList<RequestBuilder<?, ?, ?>>();
+    private boolean splitIndependent = false;
+    private boolean streamingCompletion = false;
 
     @Target(value={ElementType.TYPE})
     @Retention(RetentionPolicy.RUNTIME)
@@ -71,8 +77,7 @@ public class MultiRequestBuilder extends BaseRequestBuilder<List<Object>, MultiR
     }
 
     public MultiRequestBuilder add(RequestBuilder<?, ?, ?> request) {
-        lastId++;
-        String reqId = lastId + "";
+        String reqId = String.valueOf(requests.size() + 1);
         request.params.add("service", request.getService());
         request.params.add("action", request.getAction());
         params.add(reqId, request.params);
@@ -82,67 +87,200 @@ public class MultiRequestBuilder extends BaseRequestBuilder<List<Object>, MultiR
         	}
         	files.add(reqId, request.files);
         }
-        requests.put(reqId, request);
+        requests.add(request);
         request.setId(reqId);
 
         return this;
     }
 
     /**
-     * Adds the requests from kalturaMultiRequestBuilder parameter to the end of the current requests list
-     * @param multiRequestBuilder another multirequests to copy requests from
+     * Adds the requests from kalturaMultiRequestBuilder parameter to the end of the current requests list.
+     * The requests get new ids, with their files, and links between them are renumbered accordingly,
+     * so the given multi-request should not be used afterwards.
+     * @param multiRequestBuilder another multirequests to move requests from
      * @return MultiRequestBuilder
      */
     public MultiRequestBuilder add(MultiRequestBuilder multiRequestBuilder) {
-        for (String reqId : multiRequestBuilder.requests.keySet()) {
-        	RequestBuilder<?, ?, ?> request = multiRequestBuilder.requests.get(reqId);
-            int last = requests.size() + 1;
-            requests.put(last + "", request);
-            params.add(last + "", request.params);
+        final int offset = requests.size();
+        MultiRequestPlan plan = new MultiRequestPlan(multiRequestBuilder.requests);
+        MultiRequestPlan.TokenMapper renumber = new MultiRequestPlan.TokenMapper() {
+            @Override
+            public Object map(int call, int source, String path, String token, boolean whole) {
+                return "{" + (offset + source + 1) + ":result" + path + "}";
+            }
+        };
+
+        for (int call = 0; call < plan.size(); call++) {
+            RequestBuilder<?, ?, ?> request = multiRequestBuilder.requests.get(call);
+            if (offset > 0 && plan.sources[call].length > 0) {
+                try {
+                    request.params = (Params) plan.copy(request.params, call, renumber);
+                } catch (APIException e) {
+                    // the renumbering mapper never fails
+                }
+            }
+            add(request);
         }
 
         return this;
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
+    /**
+     * Response parsed from the body stream, its first results were already passed to their requests' completions.
+     */
+    private static class StreamedResponse extends Response<List<Object>> {
+        int completed = 0;
+
+        StreamedResponse() {
+            super(null, null);
+        }
+    }
+
     @Override
     public void onComplete(Response<List<Object>> response) {
 
         if(response != null) {
-            APIException topError = response.error;
-
-            int index = 0;
-
-            for(RequestBuilder<?, ?, ?> request : requests.values()) {
-                if(request.onCompletion != null) {
-                    if (topError != null) {
-                        request.onComplete(new Response(null, topError));
+            int completed = response instanceof StreamedResponse ? ((StreamedResponse) response).completed : 0;
+            int position = 0;
 
-                    } else {
-                        Object item = response.results.get(index++);
-                        APIException error = null;
-
-                        if (item instanceof APIException) {
-                            error = (APIException) item;
-                            item = null;
-                        }
-
-                        request.onComplete(new Response(item, error));
-                    }
+            for(RequestBuilder<?, ?, ?> request : requests) {
+                if(position >= completed) {
+                    complete(request, response.error != null ? response.error : response.results.get(position), null);
                 }
+                position++;
             }
         }
 
         super.onComplete(response);
     }
 
+    /**
+     * @param delivery delivers the completion, null to complete on the calling thread
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void complete(RequestBuilder<?, ?, ?> request, Object item, StreamingRequestElement.Delivery delivery) {
+        if(request.onCompletion == null) {
+            return;
+        }
+        APIException error = null;
+        if (item instanceof APIException) {
+            error = (APIException) item;
+            item = null;
+        }
+        if(delivery != null) {
+            delivery.deliver(request, new Response(item, error));
+        }
+        else {
+            request.onComplete(new Response(item, error));
+        }
+    }
+
     @Override
     protected Object parse(String response) throws APIException {
-        List<Class<?>> list = new ArrayList<Class<?>>();
-        for(RequestBuilder<?, ?, ?> call : requests.values()) {
-            list.add(call.getType());
+    	return parse(response, null);
+    }
+
+    @Override
+    protected Object parse(String response, ConnectionConfiguration config) throws APIException {
+        int parallelThreshold = ExtendedConnectionConfiguration.Values.getParallelParseThreshold(config);
+    	return GsonParser.parseArray(response, getItemParser(requests, config), parallelThreshold);
+    }
+
+    /**
+     * Each result is parsed by the request it belongs to, see {@link BaseRequestBuilder#parseItem}.
+     */
+    static GsonParser.ItemParser getItemParser(final List<? extends BaseRequestBuilder<?, ?>> calls, final ConnectionConfiguration config) {
+        return new GsonParser.ItemParser() {
+            @Override
+            public Object parse(int index, JsonElement item) throws APIException {
+                return calls.get(index).parseItem(item, config);
+            }
+        };
+    }
+
+    @Override
+    protected boolean isStreaming() {
+        return streamingCompletion;
+    }
+
+    /**
+     * Passes each result to its request's completion as soon as it was read.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Response<List<Object>> parseResponse(ResponseElement response, Reader body, ConnectionConfiguration config, final StreamingRequestElement.Delivery delivery) {
+        final StreamedResponse streamed = new StreamedResponse();
+        try {
+            streamed.results = (List<Object>) GsonParser.parseArray(body, getItemParser(requests, config), new GsonParser.ItemHandler() {
+                @Override
+                public void onItem(int index, Object item) {
+                    streamed.completed = index + 1;
+                    complete(requests.get(index), item, delivery);
+                }
+            });
+        } catch (APIException e) {
+            streamed.error = e;
+        }
+        return streamed;
+    }
+
+    /**
+     * Signs and encodes the multi-request. When the calls exceed the connection's
+     * {@link ExtendedConnectionConfiguration#getMultiRequestMaxCalls() max calls} or
+     * {@link ExtendedConnectionConfiguration#getMultiRequestMaxSize() max size}, or unlinked calls
+     * are {@link #setSplitIndependent(boolean) split}, the returned request is a
+     * {@link ChunkedMultiRequest} that sends them as several multi-requests.
+     */
+    @Override
+    public RequestElement<List<Object>> build(final Client client, boolean addSignature) {
+        RequestElement<List<Object>> request = super.build(client, addSignature);
+        ConnectionConfiguration config = request.config();
+        int maxCalls = ExtendedConnectionConfiguration.Values.getMultiRequestMaxCalls(config);
+        int maxSize = ExtendedConnectionConfiguration.Values.getMultiRequestMaxSize(config);
+        if(requests.size() < 2 || (!splitIndependent && maxSize <= 0 && (maxCalls <= 0 || requests.size() <= maxCalls))) {
+            return request;
+        }
+
+        MultiRequestPlan plan = new MultiRequestPlan(requests);
+        List<int[]> partition = plan.partition(maxCalls, maxSize, splitIndependent);
+        if(partition.size() < 2) {
+            return request;
         }
-    	return GsonParser.parseArray(response, list.toArray(new Class[requests.size()]));
+        return new ChunkedMultiRequest(this, client, addSignature, request, plan, partition);
+    }
+
+    /**
+     * Sends calls that are not linked to each other, directly or through other calls, as separate
+     * concurrent multi-requests, so the latency follows the longest chain of linked calls rather
+     * than the total number of calls. Links are found in the <code>{id:result:path}</code> tokens
+     * of the calls' parameters.
+     * <p>
+     * The server no longer runs all the calls in order, use it only when calls that are not linked
+     * don't depend on each other's side effects either.
+     *
+     * @param splitIndependent send unlinked calls concurrently
+     * @return this builder
+     */
+    public MultiRequestBuilder setSplitIndependent(boolean splitIndependent) {
+        this.splitIndependent = splitIndependent;
+        return this;
+    }
+
+    /**
+     * Reads the response as it is received and completes each call as soon as its result was
+     * read, so the calls' completions run while the rest of the response is still downloaded and
+     * parsed. The multi-request's own completion still gets all the results at the end.
+     * <p>
+     * Applies to queued requests, the calls' completions then run on the thread that reads the
+     * response, in order. The response body is not logged, and not attached to errors.
+     * Multi-requests that are {@link #build split} complete their calls once all parts completed.
+     *
+     * @param streamingCompletion complete each call as soon as its result was read
+     * @return this builder
+     */
+    public MultiRequestBuilder setStreamingCompletion(boolean streamingCompletion) {
+        this.streamingCompletion = streamingCompletion;
+        return this;
     }
 
     /**
@@ -200,10 +338,8 @@ public class MultiRequestBuilder extends BaseRequestBuilder<List<Object>, MultiR
         return MULTIREQUEST_ACTION;
     }
 
-    @SuppressWarnings("rawtypes")
-	private RequestBuilder getRequestAt(int index) throws IndexOutOfBoundsException{
-        Object[] requestsKeys = requests.keySet().toArray();
-        return requests.get(requestsKeys[index]);
+    private RequestBuilder<?, ?, ?> getRequestAt(int index) throws IndexOutOfBoundsException{
+        return requests.get(index);
     }
 
  }
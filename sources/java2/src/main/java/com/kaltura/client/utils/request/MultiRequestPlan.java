@@ -0,0 +1,249 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.Files;
+import com.kaltura.client.Params;
+import com.kaltura.client.types.APIException;
+import com.kaltura.client.types.ObjectBase;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot of the calls of a multi-request and of the dependencies between them, used to split
+ * the calls into separate multi-requests, see {@link ChunkedMultiRequest}.
+ * <p>
+ * A call depends on the earlier calls referenced by <code>{id:result:path}</code> tokens in its
+ * parameters, as set by {@link MultiRequestBuilder#link} or by values taken from a tokenizer.
+ */
+final class MultiRequestPlan {
+
+    private static final Pattern TokenPattern = Pattern.compile("\\{(\\d+):result((?::[^{}:]+)*)\\}");
+
+    /**
+     * Replaces a token found in a parameter value.
+     */
+    interface TokenMapper {
+        /**
+         * @param call index of the call that holds the token
+         * @param source index of the call the token refers to, always lower than call
+         * @param path result path, e.g. ":objects:0:id", or empty for the whole result
+         * @param token the token text
+         * @param whole whether the token is the whole value
+         * @return the replacement, a string unless whole is set
+         * @throws APIException if the call can't be sent
+         */
+        Object map(int call, int source, String path, String token, boolean whole) throws APIException;
+    }
+
+    final String[] ids;
+    final Params[] params;
+    final Files[] files;
+    final RequestBuilder<?, ?, ?>[] requests;
+
+    /**
+     * Indexes of the calls each call depends on.
+     */
+    final int[][] sources;
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    MultiRequestPlan(List<RequestBuilder<?, ?, ?>> requests) {
+        int count = requests.size();
+        ids = new String[count];
+        params = new Params[count];
+        files = new Files[count];
+        this.requests = requests.toArray(new RequestBuilder<?, ?, ?>[count]);
+        sources = new int[count][];
+
+        int call = 0;
+        for(RequestBuilder<?, ?, ?> request : requests) {
+            ids[call] = request.getId();
+            indexes.put(ids[call], call);
+            call++;
+        }
+
+        call = 0;
+        for(RequestBuilder<?, ?, ?> request : requests) {
+            final Set<Integer> callSources = new LinkedHashSet<Integer>();
+            try {
+                params[call] = (Params) copy(request.params, call, new TokenMapper() {
+                    @Override
+                    public Object map(int call, int source, String path, String token, boolean whole) {
+                        callSources.add(source);
+                        return token;
+                    }
+                });
+            } catch (APIException e) {
+                // the snapshot mapper never fails
+            }
+            sources[call] = toArray(callSources);
+            if(request.files != null) {
+                files[call] = new Files();
+                files[call].add(request.files);
+            }
+            call++;
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Splits the calls into parts. With independent splitting, calls that are not linked to each
+     * other, directly or through other calls, go to separate parts, so the longest chain of linked
+     * calls sets the latency rather than the total number of calls. Each group is then split, in
+     * order, into chunks within the limits, a call larger than the max size is sent alone.
+     *
+     * @param maxCalls maximal number of calls in a part, zero or negative for no limit
+     * @param maxSize maximal size in bytes of the calls' parameters in a part, zero or negative for no limit
+     * @param splitIndependent whether to send unlinked calls in separate parts
+     * @return indexes of the calls of each part, ascending within each part
+     */
+    List<int[]> partition(int maxCalls, int maxSize, boolean splitIndependent) {
+        List<List<Integer>> groups = new ArrayList<List<Integer>>();
+        if(splitIndependent) {
+            int[] roots = new int[size()];
+            for(int call = 0; call < roots.length; call++) {
+                roots[call] = call;
+                for(int source : sources[call]) {
+                    union(roots, call, source);
+                }
+            }
+
+            Map<Integer, List<Integer>> components = new LinkedHashMap<Integer, List<Integer>>();
+            for(int call = 0; call < roots.length; call++) {
+                int root = find(roots, call);
+                List<Integer> component = components.get(root);
+                if(component == null) {
+                    component = new ArrayList<Integer>();
+                    components.put(root, component);
+                }
+                component.add(call);
+            }
+            groups.addAll(components.values());
+        }
+        else {
+            List<Integer> all = new ArrayList<Integer>(size());
+            for(int call = 0; call < size(); call++) {
+                all.add(call);
+            }
+            groups.add(all);
+        }
+
+        Charset utf8 = Charset.forName("UTF-8");
+        List<int[]> partition = new ArrayList<int[]>();
+        for(List<Integer> group : groups) {
+            List<Integer> chunk = new ArrayList<Integer>();
+            int chunkSize = 0;
+            for(int call : group) {
+                int callSize = maxSize > 0 ? ids[call].length() + params[call].toString().getBytes(utf8).length + 4 : 0;
+                if(!chunk.isEmpty() && ((maxCalls > 0 && chunk.size() >= maxCalls) || (maxSize > 0 && chunkSize + callSize > maxSize))) {
+                    partition.add(toArray(chunk));
+                    chunk.clear();
+                    chunkSize = 0;
+                }
+                chunk.add(call);
+                chunkSize += callSize;
+            }
+            if(!chunk.isEmpty()) {
+                partition.add(toArray(chunk));
+            }
+        }
+        return partition;
+    }
+
+    private static int find(int[] roots, int call) {
+        while(roots[call] != call) {
+            roots[call] = roots[roots[call]];
+            call = roots[call];
+        }
+        return call;
+    }
+
+    private static void union(int[] roots, int call, int other) {
+        int root = find(roots, call);
+        int otherRoot = find(roots, other);
+        // the lower index stays the root, so the groups keep the order of their first call
+        if(root < otherRoot) {
+            roots[otherRoot] = root;
+        }
+        else {
+            roots[root] = otherRoot;
+        }
+    }
+
+    private static int[] toArray(Collection<Integer> values) {
+        int[] array = new int[values.size()];
+        int index = 0;
+        for(int value : values) {
+            array[index++] = value;
+        }
+        return array;
+    }
+
+    /**
+     * Deep copies a parameter value, objects are copied as their params and tokens referring to
+     * earlier calls are replaced through the mapper.
+     */
+    Object copy(Object value, int call, TokenMapper mapper) throws APIException {
+        if(value instanceof String) {
+            return rewrite((String) value, call, mapper);
+        }
+        if(value instanceof ObjectBase) {
+            value = ((ObjectBase) value).toParams();
+        }
+        if(value instanceof Map) {
+            Params copy = new Params();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), copy(entry.getValue(), call, mapper));
+            }
+            return copy;
+        }
+        if(value instanceof List) {
+            List<Object> copy = new ArrayList<Object>();
+            for(Object item : (List<?>) value) {
+                copy.add(copy(item, call, mapper));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private Object rewrite(String value, int call, TokenMapper mapper) throws APIException {
+        if(value.indexOf(":result") < 0) {
+            return value;
+        }
+
+        Matcher matcher = TokenPattern.matcher(value);
+        StringBuilder rewritten = null;
+        int last = 0;
+        while(matcher.find()) {
+            Integer source = indexes.get(matcher.group(1));
+            if(source == null || source >= call) {
+                continue;
+            }
+            if(matcher.start() == 0 && matcher.end() == value.length()) {
+                return mapper.map(call, source, matcher.group(2), matcher.group(), true);
+            }
+            if(rewritten == null) {
+                rewritten = new StringBuilder(value.length());
+            }
+            rewritten.append(value, last, matcher.start()).append(mapper.map(call, source, matcher.group(2), matcher.group(), false));
+            last = matcher.end();
+        }
+        if(rewritten == null) {
+            return value;
+        }
+        return rewritten.append(value, last, value.length()).toString();
+    }
+}
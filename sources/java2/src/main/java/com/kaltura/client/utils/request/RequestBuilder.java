@@ -5,6 +5,7 @@ import com.kaltura.client.Params;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.types.ListResponse;
 import com.kaltura.client.types.ObjectBase;
+import com.kaltura.client.types.TypeRegistry;
 import com.kaltura.client.utils.response.OnCompletion;
 import com.kaltura.client.utils.response.base.Response;
 
@@ -118,8 +119,16 @@ public abstract class RequestBuilder<ReturnedType, TokenizerType, SelfType> exte
 		}
     }
 
+    /**
+     * Generated tokenizer interfaces are implemented by their generated classes, other interfaces by a proxy.
+     */
     @SuppressWarnings("unchecked")
     static protected <I> I getTokenizer(Class<I> intrface, String prefix) {
+    	Object tokenizer = TypeRegistry.newTokenizer(intrface, prefix);
+    	if(tokenizer != null) {
+    		return (I) tokenizer;
+    	}
+
     	Class<?>[] parentInterfaces = intrface.getInterfaces();
     	Class<?>[] interfaces = new Class<?>[parentInterfaces.length + 1];
     	for(int i = 0; i <  parentInterfaces.length; i++) {
@@ -137,13 +146,7 @@ public abstract class RequestBuilder<ReturnedType, TokenizerType, SelfType> exte
 
     	if(ObjectBase.class.isAssignableFrom(type)) {
         	MultiRequestBuilder.Tokenizer annotation = type.getAnnotation(MultiRequestBuilder.Tokenizer.class);
-        	Class<?>[] parentInterfaces = annotation.value().getInterfaces();
-        	Class<?>[] interfaces = new Class<?>[parentInterfaces.length + 1];
-        	for(int i = 0; i <  parentInterfaces.length; i++) {
-        		interfaces[i] = parentInterfaces[i];
-        	}
-        	interfaces[parentInterfaces.length] = annotation.value();
-            return (TokenizerType) Proxy.newProxyInstance(type.getClassLoader(), interfaces, new Tokenizer(id + ":result"));
+            return (TokenizerType) getTokenizer(annotation.value(), id + ":result");
     	}
     	else {
     		return (TokenizerType) ("{" + id + ":result}");
@@ -1,9 +1,13 @@
 package com.kaltura.client.utils.request;
 
+import com.google.gson.JsonElement;
 import com.kaltura.client.Client;
 import com.kaltura.client.Params;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.utils.APIConstants;
+import com.kaltura.client.utils.GsonParser;
+
+import java.util.HashMap;
 
 public abstract class ServeRequestBuilder extends RequestBuilder<String, String, ServeRequestBuilder> {
 
@@ -23,9 +27,10 @@ public abstract class ServeRequestBuilder extends RequestBuilder<String, String,
 
 	@Override
     public RequestElement<String> build(final Client client, boolean addSignature) {
+		ConnectionConfiguration config = client.getConnectionConfiguration();
 		Params kParams = prepareParams(client, true);
-		prepareHeaders(client.getConnectionConfiguration());
-		String endPoint = client.getConnectionConfiguration().getEndpoint().replaceAll("/$", "");
+		HashMap<String, String> requestHeaders = prepareHeaders(config);
+		String endPoint = config.getEndpoint().replaceAll("/$", "");
         StringBuilder urlBuilder = new StringBuilder(endPoint)
         .append("/")
         .append(APIConstants.UrlApiVersion)
@@ -33,12 +38,10 @@ public abstract class ServeRequestBuilder extends RequestBuilder<String, String,
         .append(service)
         .append("/action/")
         .append(action)
-        .append("?")
-        .append(kParams.toQueryString());
-        
-        url = urlBuilder.toString();
+        .append("?");
+        kParams.appendQueryString(urlBuilder);
 		
-		return this;
+		return new BuiltRequest<String>(this, config, getMethod(), urlBuilder.toString(), requestHeaders, null, files);
     }
 	
 	@Override
@@ -46,6 +49,11 @@ public abstract class ServeRequestBuilder extends RequestBuilder<String, String,
     	return response;
     }
 
+	@Override
+	protected Object parseItem(JsonElement result, ConnectionConfiguration config) throws APIException {
+		return GsonParser.parseText(result);
+	}
+
 	@Override
 	public String getTokenizer() throws APIException {
 		throw new APIException(APIException.FailureStep.OnRequest, "Served content response can not be used as multi-request token");
@@ -0,0 +1,43 @@
+package com.kaltura.client.utils.request;
+
+import com.kaltura.client.utils.response.base.Response;
+import com.kaltura.client.utils.response.base.ResponseElement;
+
+import java.io.Reader;
+
+/**
+ * Request that may parse its response while it is received, instead of after the whole body was read.
+ * <p>
+ * Queues that support it pass successful response bodies of {@link #isStreaming() streaming}
+ * requests to {@link #parseResponse(ResponseElement, Reader)}, the body is then neither kept nor logged.
+ * Other queues parse the whole body through {@link #parseResponse(ResponseElement)}.
+ */
+public interface StreamingRequestElement<T> extends RequestElement<T> {
+
+    /**
+     * Passes the completions of calls that complete while the body is read, e.g. the calls of a
+     * multi-request, on the thread the queue delivers completions on.
+     */
+    interface Delivery {
+        /**
+         * @param request the completed call
+         * @param response its parsed response
+         */
+        void deliver(RequestElement<?> request, Response<?> response);
+    }
+
+    /**
+     * @return whether the response should be parsed from the body stream
+     */
+    boolean isStreaming();
+
+    /**
+     * Parses a successful response from its body stream.
+     *
+     * @param responseElement request id, code and headers of the response, without body
+     * @param body response body, closed by the caller
+     * @param delivery delivers completions of calls completed while reading, the request's own completion is left to the caller
+     * @return parsed response
+     */
+    Response<T> parseResponse(ResponseElement responseElement, Reader body, Delivery delivery);
+}
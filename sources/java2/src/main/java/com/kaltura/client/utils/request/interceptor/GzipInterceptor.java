@@ -1,46 +1,177 @@
 package com.kaltura.client.utils.request.interceptor;
 
+import com.kaltura.client.utils.APIConstants;
+
 import okhttp3.*;
+import okio.Buffer;
 import okio.BufferedSink;
-import okio.GzipSink;
 import okio.Okio;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Created by tehilarozin on 14/08/2016.
+ *
+ * Compresses request bodies that are larger than the configured minimal size.
+ * Multipart (upload) bodies are never compressed, and the compressed body is sent only if it is actually smaller.
  */
 public class GzipInterceptor implements Interceptor {
 
+    /**
+     * Accumulated compression counters, may be shared by several interceptors.
+     */
+    public static class Metrics {
+        private final AtomicLong compressedRequests = new AtomicLong();
+        private final AtomicLong skippedRequests = new AtomicLong();
+        private final AtomicLong originalBytes = new AtomicLong();
+        private final AtomicLong compressedBytes = new AtomicLong();
+        private final AtomicLong compressionNanos = new AtomicLong();
+
+        void onCompressed(long original, long compressed, long nanos) {
+            compressedRequests.incrementAndGet();
+            originalBytes.addAndGet(original);
+            compressedBytes.addAndGet(compressed);
+            compressionNanos.addAndGet(nanos);
+        }
+
+        void onSkipped(long nanos) {
+            skippedRequests.incrementAndGet();
+            compressionNanos.addAndGet(nanos);
+        }
+
+        /**
+         * @return number of requests sent compressed
+         */
+        public long getCompressedRequests() {
+            return compressedRequests.get();
+        }
+
+        /**
+         * @return number of requests that were compressed but sent as is since compression did not reduce their size
+         */
+        public long getSkippedRequests() {
+            return skippedRequests.get();
+        }
+
+        public long getOriginalBytes() {
+            return originalBytes.get();
+        }
+
+        public long getCompressedBytes() {
+            return compressedBytes.get();
+        }
+
+        public long getBytesSaved() {
+            return originalBytes.get() - compressedBytes.get();
+        }
+
+        /**
+         * @return total time spent compressing, including attempts that were skipped
+         */
+        public long getCompressionNanos() {
+            return compressionNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return "compressed: " + getCompressedRequests() + ", skipped: " + getSkippedRequests()
+                    + ", bytes: " + getOriginalBytes() + " -> " + getCompressedBytes()
+                    + ", time: " + (getCompressionNanos() / 1000000) + "ms";
+        }
+    }
+
+    private final long minSize;
+    private final int level;
+    private final Metrics metrics;
+
+    public GzipInterceptor() {
+        this(0, Deflater.DEFAULT_COMPRESSION, new Metrics());
+    }
+
+    /**
+     * @param minSize minimal body size in bytes to compress
+     * @param level deflate compression level (0-9 or Deflater.DEFAULT_COMPRESSION)
+     * @param metrics counters to report to
+     */
+    public GzipInterceptor(long minSize, int level, Metrics metrics) {
+        this.minSize = minSize;
+        this.level = level;
+        this.metrics = metrics;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request originalRequest = chain.request();
-        if (originalRequest.body() == null || originalRequest.header("Content-Encoding") != null) {
+        RequestBody body = originalRequest.body();
+        if (body == null || originalRequest.header(APIConstants.HeaderContentEncoding) != null || isMultipart(body)) {
             return chain.proceed(originalRequest);
         }
 
+        long contentLength = body.contentLength();
+        if (contentLength >= 0 && contentLength < minSize) {
+            return chain.proceed(originalRequest);
+        }
+
+        long start = System.nanoTime();
+        Buffer compressed = new Buffer();
+        long originalSize = gzip(body, compressed);
+        long nanos = System.nanoTime() - start;
+        if (compressed.size() >= originalSize) {
+            metrics.onSkipped(nanos);
+            compressed.clear();
+            return chain.proceed(originalRequest);
+        }
+        metrics.onCompressed(originalSize, compressed.size(), nanos);
+
         Request compressedRequest = originalRequest.newBuilder()
-                .header("Content-Encoding", "gzip")
-                .method(originalRequest.method(), gzip(originalRequest.body()))
+                .header(APIConstants.HeaderContentEncoding, APIConstants.HeaderEncodingGzip)
+                .method(originalRequest.method(), RequestBody.create(body.contentType(), compressed.readByteString()))
                 .build();
         return chain.proceed(compressedRequest);
     }
 
-    private RequestBody gzip(final RequestBody body) {
-        return new RequestBody() {
-            @Override public MediaType contentType() {
-                return body.contentType();
-            }
+    private boolean isMultipart(RequestBody body) {
+        if (body instanceof MultipartBody) {
+            return true;
+        }
+        MediaType contentType = body.contentType();
+        return contentType != null && "multipart".equals(contentType.type());
+    }
+
+    /**
+     * Compresses the whole body up front, so the request is sent with an exact content length.
+     *
+     * @return the uncompressed body size
+     */
+    private long gzip(RequestBody body, Buffer compressed) throws IOException {
+        LevelGzipOutputStream gzipStream = new LevelGzipOutputStream(compressed, level);
+        BufferedSink gzipSink = Okio.buffer(Okio.sink(gzipStream));
+        try {
+            body.writeTo(gzipSink);
+            gzipSink.flush();
+            gzipStream.finish();
+            return gzipStream.getBytesRead();
+        } finally {
+            gzipSink.close();
+        }
+    }
 
-            @Override public long contentLength() {
-                return -1; // We don't know the compressed length in advance!
-            }
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
 
-            @Override public void writeTo(BufferedSink sink) throws IOException {
-                BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
-                body.writeTo(gzipSink);
-                gzipSink.close();
-            }
-        };
+        LevelGzipOutputStream(Buffer out, int level) throws IOException {
+            super(out.outputStream(), 8192);
+            def.setLevel(level);
+        }
+
+        long getBytesRead() {
+            return def.getBytesRead();
+        }
     }
 }
@@ -31,7 +31,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
 import com.kaltura.client.APIOkRequestsExecutor;
@@ -69,6 +71,7 @@ import com.kaltura.client.types.MediaEntryFilterForPlaylist;
 import com.kaltura.client.types.ModerationFlag;
 import com.kaltura.client.types.UploadToken;
 import com.kaltura.client.types.UploadedFileTokenResource;
+import com.kaltura.client.utils.request.ListScanner;
 import com.kaltura.client.utils.request.NullRequestBuilder;
 import com.kaltura.client.utils.request.ServeRequestBuilder;
 import com.kaltura.client.utils.response.OnCompletion;
@@ -466,6 +469,94 @@ public class MediaServiceTest extends BaseTest {
 		}
 		doneSignal.await();
 	}
+
+	/**
+	 * Adds test images and waits until they are processed.
+	 * 
+	 * @param count number of entries to add
+	 * @return filter that lists the added entries
+	 */
+	private MediaEntryFilter addListedEntries(int count) throws InterruptedException {
+		final CountDownLatch doneSignal = new CountDownLatch(count);
+		OnCompletion<MediaEntry> onCompletion = new OnCompletion<MediaEntry>() {
+
+			@Override
+			public void onComplete(MediaEntry addedEntry) {
+				getProcessedEntry(addedEntry.getId(), new OnCompletion<MediaEntry>() {
+
+					@Override
+					public void onComplete(MediaEntry readyEntry) {
+						doneSignal.countDown();
+					}
+				});
+			}
+		};
+
+		List<String> names = new ArrayList<String>();
+		for(int i = 0; i < count; i++) {
+			String name = getName() + " (" + new Date() + ")";
+			names.add(name);
+			addTestImage(name, onCompletion);
+			Thread.sleep(1000);
+		}
+		doneSignal.await();
+
+		MediaEntryFilter filter = new MediaEntryFilter();
+		filter.setNameMultiLikeOr(join(names));
+		filter.setStatusIn(EntryStatus.IMPORT.getValue() + "," + EntryStatus.NO_CONTENT.getValue() + "," + EntryStatus.PENDING.getValue() + "," + EntryStatus.PRECONVERT.getValue() + "," + EntryStatus.READY.getValue());
+		return filter;
+	}
+
+	/**
+	 * Tests the following : 
+	 * Media Service -
+	 *  - list, iterated page by page
+	 * @throws Exception 
+	 */
+	public void testListPages() throws Exception {
+		final int count = 2;
+		
+		startUserSession();
+		MediaEntryFilter filter = addListedEntries(count);
+
+		// one entry per page, each page is requested while the previous one is iterated,
+		// on the test thread, as the iteration blocks
+		Set<String> ids = new HashSet<String>();
+		for(MediaEntry entry : MediaService.list(filter).pages(client, APIOkRequestsExecutor.getExecutor()).setPageSize(1)) {
+			assertTrue(ids.add(entry.getId()));
+		}
+		assertEquals(count, ids.size());
+	}
+
+	/**
+	 * Tests the following : 
+	 * Media Service -
+	 *  - list, scanned by createdAt ranges
+	 * @throws Exception 
+	 */
+	public void testListScan() throws Exception {
+		final int count = 2;
+		
+		startUserSession();
+		MediaEntryFilter filter = addListedEntries(count);
+
+		// one entry per page, on the test thread, as the scan blocks
+		final Set<String> ids = new HashSet<String>();
+		MediaService.list(filter).scan(client, APIOkRequestsExecutor.getExecutor(), "createdAt", new ListScanner.KeyReader<MediaEntry>() {
+			@Override
+			public long getKey(MediaEntry entry) {
+				return entry.getCreatedAt();
+			}
+		}).setPageSize(1).scan(new ListScanner.PageHandler<MediaEntry>() {
+			@Override
+			public void onPage(List<MediaEntry> items) {
+				for(MediaEntry entry : items) {
+					ids.add(entry.getId());
+				}
+			}
+		});
+		assertEquals(count, ids.size());
+	}
 	
 	/**
 	 * Tests the following : 
@@ -29,19 +29,34 @@ package com.kaltura.client.test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.kaltura.client.types.APIException;
 import com.kaltura.client.types.BaseEntry;
 import com.kaltura.client.types.DrmPlaybackPluginData;
+import com.kaltura.client.utils.request.ChunkedMultiRequest;
+import com.kaltura.client.utils.request.ConnectionConfiguration;
+import com.kaltura.client.utils.request.ExecutedRequest;
 import com.kaltura.client.utils.request.MultiRequestBuilder;
 import com.kaltura.client.utils.request.NullRequestBuilder;
+import com.kaltura.client.utils.request.RequestElement;
 import com.kaltura.client.utils.response.OnCompletion;
 import com.kaltura.client.utils.response.base.Response;
 import com.kaltura.client.APIOkRequestsExecutor;
+import com.kaltura.client.Client;
+import com.kaltura.client.Configuration;
+import com.kaltura.client.ILogger;
+import com.kaltura.client.Logger;
+import com.kaltura.client.RequestQueue;
 import com.kaltura.client.enums.EntryStatus;
 import com.kaltura.client.enums.MediaType;
 import com.kaltura.client.enums.UploadTokenStatus;
@@ -69,6 +84,8 @@ import com.kaltura.client.types.UploadedFileTokenResource;
 
 public class MultiRequestTest extends BaseTest{
 
+	private static ILogger logger = Logger.getLogger(MultiRequestTest.class);
+
 	public void testWithFileUpload() throws Exception {
 
 		final File fileData = TestUtils.getTestImageFile();
@@ -414,4 +431,272 @@ public class MultiRequestTest extends BaseTest{
 		assertEquals("{6:result:pluginData:myKey:scheme}", baseEntryGetContextDataRequestBuilder.getTokenizer().pluginData().get("myKey", DrmPlaybackPluginData.Tokenizer.class).scheme());
 		assertEquals("{7:result:objects:1:id}", baseEntryListRequestBuilder.getTokenizer().objects().get(1).id());
 	}
+	
+	public void testMergedMultiRequest() throws Exception {
+
+		final File fileData = TestUtils.getTestImageFile();
+
+		GetMediaBuilder mediaGetRequestBuilder = MediaService.get("whatever");
+		MultiRequestBuilder nestedRequestBuilder = new MultiRequestBuilder(mediaGetRequestBuilder, UploadTokenService.upload("whatever", fileData, false));
+		nestedRequestBuilder.link(0, 1, "id", "uploadTokenId");
+
+		MultiRequestBuilder requestBuilder = new MultiRequestBuilder(SystemService.ping(), SystemService.ping())
+		.add(nestedRequestBuilder);
+
+		assertEquals("{3:result:id}", mediaGetRequestBuilder.getTokenizer().id());
+
+		RequestElement<List<Object>> request = requestBuilder.build(client);
+		assertTrue(request.getBody().contains("\"uploadTokenId\":\"{3:result:id}\""));
+		assertNotNull(request.getFiles());
+		assertTrue(request.getFiles().containsKey("4:fileData"));
+	}
+	
+	/**
+	 * Builds and serializes a batch of 10,000 calls, each linked to the previous one.
+	 */
+	public void testLargeBatch() throws Exception {
+
+		final int calls = 10000;
+		long start = System.nanoTime();
+
+		MultiRequestBuilder requestBuilder = new MultiRequestBuilder();
+		for(int i = 0; i < calls; i++) {
+			requestBuilder.add(MediaService.get("whatever" + i));
+		}
+		for(int i = 1; i < calls; i++) {
+			requestBuilder.link(i - 1, i, "id", "entryId");
+		}
+		long composed = System.nanoTime();
+
+		byte[] body = requestBuilder.build(client).getBody().getBytes("UTF-8");
+		long built = System.nanoTime();
+
+		assertTrue(new String(body, "UTF-8").contains("\"" + calls + "\":{\"entryId\":\"{" + (calls - 1) + ":result:id}\""));
+		if (logger.isEnabled()) {
+			logger.info(calls + " calls composed in " + (composed - start) / 1000000 + " ms, built and serialized in " + (built - composed) / 1000000 + " ms, " + body.length + " bytes");
+		}
+	}
+
+	/**
+	 * Sends 5 calls with at most 2 calls per multi-request, the parts are answered out of order.
+	 */
+	public void testChunkedMultiRequest() throws Exception {
+
+		Configuration config = new Configuration();
+		config.setMultiRequestMaxCalls(2);
+		Client chunkedClient = new Client(config);
+
+		final List<String> completed = new ArrayList<String>();
+		final List<Object> results = new ArrayList<Object>();
+		MultiRequestBuilder requestBuilder = getEntries(completed, "e1", "linked", "linked", "linked", "e5")
+		.link(0, 1, "id", "entryId")
+		.link(1, 2, "id", "entryId")
+		.link(2, 3, "id", "entryId")
+		.setCompletion(new OnCompletion<Response<List<Object>>>() {
+
+			@Override
+			public void onComplete(Response<List<Object>> result) {
+				assertNull(result.error);
+				completed.add("multi-request");
+				results.addAll(result.results);
+			}
+		});
+
+		RequestElement<List<Object>> request = requestBuilder.build(chunkedClient);
+		assertTrue(request instanceof ChunkedMultiRequest);
+		assertEquals(3, ((ChunkedMultiRequest) request).getPartsCount());
+
+		// calls 1-2 and 5 are sent right away, calls 3-4 wait for the id returned by call 2
+		RecordingQueue queue = new RecordingQueue();
+		((ChunkedMultiRequest) request).queue(queue);
+		assertEquals(2, queue.sent.size());
+		assertEquals(Arrays.asList("e1", "{1:result:id}"), queue.entryIds(0));
+		assertEquals(Arrays.asList("e5"), queue.entryIds(1));
+
+		queue.respond(1);
+		assertEquals(2, queue.sent.size());
+		assertTrue(completed.isEmpty());
+
+		// the token of call 3 is replaced by the value, the token of call 4 is renumbered within its part
+		queue.respond(0);
+		assertEquals(3, queue.sent.size());
+		assertEquals(Arrays.asList("e1/r/r", "{1:result:id}"), queue.entryIds(2));
+		assertTrue(completed.isEmpty());
+
+		queue.respond(2);
+		assertEquals(Arrays.asList("1=e1/r", "2=e1/r/r", "3=e1/r/r/r", "4=e1/r/r/r/r", "5=e5/r", "multi-request"), completed);
+		assertEquals(5, results.size());
+		assertEquals("e1/r/r/r", ((MediaEntry) results.get(2)).getId());
+	}
+
+	/**
+	 * Two chains of linked calls and an unlinked call are sent as three concurrent multi-requests.
+	 */
+	public void testSplitIndependentMultiRequest() throws Exception {
+
+		final List<String> completed = new ArrayList<String>();
+		MultiRequestBuilder requestBuilder = getEntries(completed, "a", "b", "c", "linked", "linked", "linked")
+		.link(0, 3, "id", "entryId")
+		.link(1, 4, "id", "entryId")
+		.link(3, 5, "id", "entryId")
+		.setSplitIndependent(true);
+
+		RequestElement<List<Object>> request = requestBuilder.build(client);
+		assertTrue(request instanceof ChunkedMultiRequest);
+		assertEquals(3, ((ChunkedMultiRequest) request).getPartsCount());
+
+		RecordingQueue queue = new RecordingQueue();
+		((ChunkedMultiRequest) request).queue(queue);
+		assertEquals(3, queue.sent.size());
+		assertEquals(Arrays.asList("a", "{1:result:id}", "{2:result:id}"), queue.entryIds(0));
+		assertEquals(Arrays.asList("b", "{1:result:id}"), queue.entryIds(1));
+		assertEquals(Arrays.asList("c"), queue.entryIds(2));
+
+		queue.respond(2);
+		queue.respond(0);
+		assertTrue(completed.isEmpty());
+		queue.respond(1);
+		assertEquals(Arrays.asList("1=a/r", "2=b/r", "3=c/r", "4=a/r/r", "5=b/r/r", "6=a/r/r/r"), completed);
+	}
+
+	/**
+	 * Split chains are also chunked, the part holding the end of a chain is sent once the part it is linked to completed.
+	 */
+	public void testSplitIndependentChunks() throws Exception {
+
+		Configuration config = new Configuration();
+		config.setMultiRequestMaxCalls(2);
+		Client chunkedClient = new Client(config);
+
+		final List<String> completed = new ArrayList<String>();
+		MultiRequestBuilder requestBuilder = getEntries(completed, "a", "b", "c", "linked", "linked", "linked")
+		.link(0, 3, "id", "entryId")
+		.link(1, 4, "id", "entryId")
+		.link(3, 5, "id", "entryId")
+		.setSplitIndependent(true);
+
+		RequestElement<List<Object>> request = requestBuilder.build(chunkedClient);
+		assertTrue(request instanceof ChunkedMultiRequest);
+		assertEquals(4, ((ChunkedMultiRequest) request).getPartsCount());
+
+		// calls 1 and 4, 2 and 5, and 3 are sent right away, call 6 waits for call 4
+		RecordingQueue queue = new RecordingQueue();
+		((ChunkedMultiRequest) request).queue(queue);
+		assertEquals(3, queue.sent.size());
+		assertEquals(Arrays.asList("a", "{1:result:id}"), queue.entryIds(0));
+		assertEquals(Arrays.asList("b", "{1:result:id}"), queue.entryIds(1));
+		assertEquals(Arrays.asList("c"), queue.entryIds(2));
+
+		queue.respond(1);
+		queue.respond(2);
+		assertEquals(3, queue.sent.size());
+
+		queue.respond(0);
+		assertEquals(4, queue.sent.size());
+		assertEquals(Arrays.asList("a/r/r"), queue.entryIds(3));
+		assertTrue(completed.isEmpty());
+
+		queue.respond(3);
+		assertEquals(Arrays.asList("1=a/r", "2=b/r", "3=c/r", "4=a/r/r", "5=b/r/r", "6=a/r/r/r"), completed);
+	}
+
+	/**
+	 * Adds a media.get call per entry id, the completion of each call adds "&lt;call&gt;=&lt;returned id or error&gt;" to completed.
+	 */
+	private MultiRequestBuilder getEntries(final List<String> completed, String... entryIds) {
+		MultiRequestBuilder requestBuilder = new MultiRequestBuilder();
+		for(int i = 0; i < entryIds.length; i++) {
+			final int call = i + 1;
+			requestBuilder.add(MediaService.get(entryIds[i]).setCompletion(new OnCompletion<Response<MediaEntry>>() {
+
+				@Override
+				public void onComplete(Response<MediaEntry> result) {
+					completed.add(call + "=" + (result.error != null ? result.error.getMessage() : result.results.getId()));
+				}
+			}));
+		}
+		return requestBuilder;
+	}
+
+	/**
+	 * Keeps the queued multi-requests until the test answers them. Each media.get call is answered
+	 * as by the server, with an entry whose id is "&lt;entryId&gt;/r", after replacing tokens of
+	 * earlier calls of the same multi-request by their results.
+	 */
+	private static class RecordingQueue implements RequestQueue {
+
+		private static final Pattern IdToken = Pattern.compile("\\{(\\d+):result:id\\}");
+
+		final List<RequestElement<?>> sent = new ArrayList<RequestElement<?>>();
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public String queue(RequestElement request) {
+			sent.add(request);
+			return String.valueOf(sent.size());
+		}
+
+		/**
+		 * @return the entryId of each call of a sent multi-request, in order
+		 */
+		List<String> entryIds(int index) {
+			JsonObject body = new JsonParser().parse(sent.get(index).getBody()).getAsJsonObject();
+			List<String> entryIds = new ArrayList<String>();
+			for(int call = 1; body.has(String.valueOf(call)); call++) {
+				entryIds.add(body.getAsJsonObject(String.valueOf(call)).get("entryId").getAsString());
+			}
+			return entryIds;
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		void respond(int index) {
+			List<String> resultIds = new ArrayList<String>();
+			JsonArray results = new JsonArray();
+			for(String entryId : entryIds(index)) {
+				Matcher token = IdToken.matcher(entryId);
+				if(token.matches()) {
+					entryId = resultIds.get(Integer.parseInt(token.group(1)) - 1);
+				}
+				resultIds.add(entryId + "/r");
+
+				JsonObject result = new JsonObject();
+				result.addProperty("objectType", "KalturaMediaEntry");
+				result.addProperty("id", entryId + "/r");
+				results.add(result);
+			}
+			RequestElement request = sent.get(index);
+			request.onComplete(request.parseResponse(new ExecutedRequest().response(results.toString()).success(true)));
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public Response<?> execute(RequestElement request) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setDefaultConfiguration(ConnectionConfiguration config) {
+		}
+
+		@Override
+		public void cancelRequest(String reqId) {
+		}
+
+		@Override
+		public void clearRequests() {
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return sent.isEmpty();
+		}
+
+		@Override
+		public void enableLogs(boolean enable) {
+		}
+
+		@Override
+		public void enableLogResponseHeader(String header, boolean log) {
+		}
+	}
 }